@@ -1,12 +1,15 @@
 package org.linuxstuff.mojo.licensing;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.model.License;
@@ -16,7 +19,12 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.resource.ResourceManager;
 import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
 import org.linuxstuff.mojo.licensing.model.CoalescedLicense;
+import org.linuxstuff.mojo.licensing.model.LicenseTable;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.LicensingReportMerger;
 import org.linuxstuff.mojo.licensing.model.LicensingRequirements;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
@@ -31,6 +39,10 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
  */
 abstract public class AbstractLicensingMojo extends AbstractMojo implements MavenProjectDependenciesConfigurator {
 
+	protected static final String COMPRESSED_SUFFIX = ".gz";
+
+	protected static final String INDEX_SUFFIX = ".index";
+
 	/**
 	 * Used to read in the licensing-requirements from the plugin's classpath.
 	 * 
@@ -73,6 +85,18 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 	 */
 	protected MavenProject project;
 
+	/**
+	 * The build session, only used to scope caches to the build. Typed loosely
+	 * since the plugin does not otherwise depend on maven-core.
+	 * 
+	 * @parameter default-value="${session}"
+	 * @readonly
+	 * @since 1.7.11
+	 */
+	protected Object session;
+
+	private TextResourceCache textResourceCache;
+
 	/**
 	 * A {@code DependenciesTool} as borrowed from the license-maven-plugin.
 	 * 
@@ -110,7 +134,8 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 
 	/**
 	 * The name of the the XML file which contains licensing information one
-	 * artifact.
+	 * artifact. When the report is written as {@code ndjson} a {@code .xml}
+	 * extension becomes {@code .ndjson}.
 	 * 
 	 * @parameter expression="${thirdPartyLicensingFilename}"
 	 *            default-value="third-party-licensing.xml"
@@ -119,13 +144,64 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 
 	/**
 	 * The name of the the XML file which contains the aggregated licensing
-	 * information for artifacts.
+	 * information for artifacts. The extension follows the
+	 * {@code reportFormat} like for {@code thirdPartyLicensingFilename}.
 	 * 
 	 * @parameter expression="${aggregatedThirdPartyLicensingFilename}"
 	 *            default-value="aggregated-third-party-licensing.xml"
 	 */
 	protected String aggregatedThirdPartyLicensingFilename;
 
+	/**
+	 * The format of the licensing report files: {@code xml}, or
+	 * {@code ndjson} for one JSON object per line and artifact. Readers detect
+	 * the format by themselves, so this only affects writing, and the
+	 * extension of the report file names.
+	 * 
+	 * @parameter expression="${licensing.reportFormat}" default-value="xml"
+	 * @since 1.7.11
+	 */
+	protected String reportFormat;
+
+	/**
+	 * Gzip the licensing report files. A {@code .gz} suffix is added to the
+	 * file names; reading picks up compressed reports by itself.
+	 * 
+	 * @parameter expression="${licensing.compressReports}" default-value="false"
+	 * @since 1.7.11
+	 */
+	protected boolean compressReports;
+
+	/**
+	 * Build aggregated reports with a streaming merge of sorted module reports
+	 * instead of combining them in memory. Memory use then depends on the
+	 * number of modules rather than the number of artifacts.
+	 * 
+	 * @parameter expression="${licensing.streamingMerge}" default-value="false"
+	 * @since 1.7.11
+	 */
+	protected boolean streamingMerge;
+
+	/**
+	 * Write a {@code .index} file next to the aggregated report, listing the
+	 * artifacts by id, by license and by module, for the {@code query} goal.
+	 * 
+	 * @parameter expression="${licensing.writeIndex}" default-value="false"
+	 * @since 1.7.11
+	 */
+	protected boolean writeIndex;
+
+	/**
+	 * How many threads to use for work that can run in parallel, such as
+	 * reading module reports or evaluating dependencies. {@code 0} means one
+	 * per available processor. Dependencies are always resolved one at a
+	 * time, so only larger builds gain from more threads.
+	 * 
+	 * @parameter expression="${licensing.threads}" default-value="1"
+	 * @since 1.7.11
+	 */
+	protected int threads;
+
 	/**
 	 * A filter to include only some GroupIds
 	 * 
@@ -183,14 +259,172 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 	 * @return Does not return null, will return an empty set.
 	 */
 	protected Collection<MavenProject> getProjectDependencies(MavenProject aProject) {
+		return getProjectDependencies(aProject, null);
+	}
+
+	/**
+	 * Like {@link #getProjectDependencies(MavenProject)}, but dependencies
+	 * found in {@code cache} are not resolved again and those resolved are
+	 * added to it.
+	 * 
+	 * @param cache
+	 *            shared between projects, or {@code null}
+	 */
+	protected Collection<MavenProject> getProjectDependencies(MavenProject aProject, SortedMap<String, MavenProject> cache) {
 
 		getLog().debug("Getting dependencies for project: " + aProject.getId());
-		Map<String, MavenProject> dependencies = dependenciesTool.loadProjectDependencies(aProject, this, localRepository, remoteRepositories, null);
+		Map<String, MavenProject> dependencies = dependenciesTool.loadProjectDependencies(aProject, this, localRepository, getRemoteRepositories(), cache);
 		getLog().debug("Dependencies found for project: " + dependencies.values().size());
 		return dependencies.values();
 
 	}
 
+	/**
+	 * @return the {@code remoteRepositories}, which Maven injects as a raw
+	 *         list of {@code ArtifactRepository}.
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<ArtifactRepository> getRemoteRepositories() {
+		return remoteRepositories;
+	}
+
+	/**
+	 * @return the cache for license and prepend/append texts of this build
+	 *         session, or of this mojo if there is no session.
+	 */
+	protected TextResourceCache getTextResourceCache() {
+		if (textResourceCache == null) {
+			textResourceCache = session == null ? new TextResourceCache() : TextResourceCache.forSession(session);
+		}
+		return textResourceCache;
+	}
+
+	/**
+	 * @return the configured number of {@code threads}, or the number of
+	 *         available processors.
+	 */
+	protected int getThreads() {
+		return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @return where the index of the aggregated report is written.
+	 */
+	protected File getIndexFile() throws MojoExecutionException {
+		return new File(project.getBuild().getDirectory(), getReportFilename(aggregatedThirdPartyLicensingFilename) + INDEX_SUFFIX);
+	}
+
+	/**
+	 * @return the configured report file name with the extension of the
+	 *         configured {@code reportFormat}, so an NDJSON report is not
+	 *         written to a {@code .xml} file.
+	 */
+	protected String getReportFilename(String filename) throws MojoExecutionException {
+		return getReportFormat().toFilename(filename);
+	}
+
+	/**
+	 * Write a licensing report in the configured {@code reportFormat},
+	 * compressed if {@code compressReports} is set.
+	 * 
+	 * @return the file actually written, which has the extension of the format
+	 *         and a {@code .gz} suffix when compressed.
+	 */
+	protected File writeReport(LicensingReport report, File file) throws MojoExecutionException {
+		ReportFormat format = getReportFormat();
+		file = getReportFile(file);
+		report.writeReport(file, format, compressReports);
+		return file;
+	}
+
+	/**
+	 * Like {@link #writeReport(LicensingReport, File)}, but the report is
+	 * streamed out of the given report files, which have to be sorted by
+	 * artifact id as this plugin writes them.
+	 * 
+	 * @see LicensingReportMerger
+	 */
+	protected File mergeReports(List<File> reports, File file) throws MojoExecutionException {
+		return mergeReports(reports, file, null, null);
+	}
+
+	/**
+	 * Like {@link #mergeReports(List, File)}, recording the artifacts of each
+	 * report in {@code index} under its module while merging.
+	 * 
+	 * @param modules
+	 *            the module of each report, in the same order
+	 */
+	protected File mergeReports(List<File> reports, File file, LicensingIndex index, List<String> modules) throws MojoExecutionException {
+		ReportFormat format = getReportFormat();
+		file = getReportFile(file);
+		LicensingReportMerger merger = new LicensingReportMerger(reports);
+		if (index != null) {
+			merger.indexInto(index, modules);
+		}
+		merger.writeReport(file, format, compressReports);
+		return file;
+	}
+
+	/**
+	 * @return the file {@link #writeReport(LicensingReport, File)} writes for
+	 *         {@code file}.
+	 */
+	protected File getReportFile(File file) throws MojoExecutionException {
+		String filename = getReportFilename(file.getName());
+		if (compressReports) {
+			filename += COMPRESSED_SUFFIX;
+		}
+		return new File(file.getParentFile(), filename);
+	}
+
+	private ReportFormat getReportFormat() throws MojoExecutionException {
+		try {
+			return ReportFormat.fromName(reportFormat);
+		} catch (IllegalArgumentException e) {
+			throw new MojoExecutionException("Unknown report format: " + reportFormat, e);
+		}
+	}
+
+	/**
+	 * Find a report written by {@link #writeReport(LicensingReport, File)},
+	 * in any report format and whether it was compressed or not. The name
+	 * that {@code reportFormat} and {@code compressReports} give is looked for
+	 * first, then the other compression, then the other formats. If more than
+	 * one exists, all but one are left over from earlier builds with other
+	 * settings, which is warned about.
+	 * 
+	 * @return the report file, which may not exist.
+	 */
+	protected File findReport(String directory, String filename) throws MojoExecutionException {
+		List<ReportFormat> formats = new ArrayList<ReportFormat>(Arrays.asList(ReportFormat.values()));
+		formats.remove(getReportFormat());
+		formats.add(0, getReportFormat());
+
+		Set<File> candidates = new LinkedHashSet<File>();
+		for (ReportFormat format : formats) {
+			File plain = new File(directory, format.toFilename(filename));
+			File compressed = new File(directory, plain.getName() + COMPRESSED_SUFFIX);
+			candidates.add(compressReports ? compressed : plain);
+			candidates.add(compressReports ? plain : compressed);
+		}
+
+		List<File> found = new ArrayList<File>();
+		for (File candidate : candidates) {
+			if (candidate.canRead()) {
+				found.add(candidate);
+			}
+		}
+
+		if (found.isEmpty()) {
+			return candidates.iterator().next();
+		}
+		if (found.size() > 1) {
+			getLog().warn("Licensing: " + found + " all exist, using " + found.get(0) + ". Run a clean build to get rid of the stale ones.");
+		}
+		return found.get(0);
+	}
+
 	/**
 	 * Swallow an XML file with licensing requirements. See the
 	 * {@code LicensingRequirements} model for more details.
@@ -200,6 +434,11 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 	 */
 	protected void readLicensingRequirements() throws MojoExecutionException {
 
+		if (session != null) {
+			// license names are interned per build, not for the life of the JVM
+			LicenseTable.enterSession(session);
+		}
+
 		XStream xstream = new XStream(new StaxDriver());
 
 		xstream.processAnnotations(LicensingRequirements.class);
@@ -252,20 +491,44 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
 	 */
 	protected boolean isDisliked(MavenProject mavenProject) {
 
-        if ( !isDislikable( mavenProject.getId() ) )
+        return isDisliked( mavenProject.getId(), collectLicensesForMavenProject( mavenProject ) );
+    }
+
+    /**
+     * As long as the {@code MavenProject} is under at least one liked license,
+     * then it is liked. This method will also consider licensing specified in
+     * licensing requirements; but only if the {@code MavenProject} does not
+     * have its own {@code License} block. If no licensing at all is found then
+     * it is considered disliked.
+     */
+    protected boolean isDisliked(ArtifactWithLicenses artifactWithLicenses) {
+
+        return isDisliked( artifactWithLicenses.getArtifactId(), artifactWithLicenses.getLicenses() );
+    }
+
+    /**
+     * Look up the cached verdict for the licenses. An artifact without any
+     * licenses is disliked unless it could not be disliked anyway.
+     */
+    private boolean isDisliked( String id, Set<String> licenses )
+    {
+        boolean exempt = licensingRequirements.isExemptFromDislike( id );
+
+        switch ( licensingRequirements.getVerdict( licenses, exempt ) )
         {
+        case DISLIKED:
+            return true;
+        case MISSING:
+            return isDislikable( exempt );
+        default:
             return false;
         }
-
-        Set<String> licenses = collectLicensesForMavenProject( mavenProject );
-
-        return checkDisliked( licenses );
     }
 
     /**
      * Check if an artifact is dislikable.
      */
-    private boolean isDislikable( String id )
+    private boolean isDislikable( boolean exempt )
     {
         boolean dislikable = true;
 		if (!licensingRequirements.containsDislikedLicenses()
@@ -273,53 +536,12 @@ abstract public class AbstractLicensingMojo extends AbstractMojo implements Mave
             dislikable = false;
 		}
 
-        if (licensingRequirements.isExemptFromDislike(id)) {
+        if (exempt) {
             dislikable = false;
 		}
         return dislikable;
     }
 
-    /**
-     * Check if there's a disliked license.
-     */
-    private boolean checkDisliked( Set<String> licenses )
-    {
-        if (licensingRequirements.containsLikedLicenses()) {
-			for (String license : licenses) {
-
-				if (licensingRequirements.isLikedLicense(license))
-					return false;
-			}
-			return true;
-		}
-		for (String license : licenses) {
-
-			if (!licensingRequirements.isDislikedLicense(license))
-				return false;
-		}
-
-		return true;
-    }
-
-    /**
-     * As long as the {@code MavenProject} is under at least one liked license,
-     * then it is liked. This method will also consider licensing specified in
-     * licensing requirements; but only if the {@code MavenProject} does not
-     * have its own {@code License} block. If no licensing at all is found then
-     * it is considered disliked.
-     */
-    protected boolean isDisliked(ArtifactWithLicenses artifactWithLicenses) {
-
-        if ( !isDislikable( artifactWithLicenses.getArtifactId() ) )
-        {
-            return false;
-        }
-
-        Set<String> licenses = artifactWithLicenses.getLicenses();
-
-        return checkDisliked( licenses );
-    }
-
 	protected boolean hasLicense(MavenProject mavenProject) {
 		return !collectLicensesForMavenProject(mavenProject).isEmpty();
 	}
@@ -1,17 +1,28 @@
 package org.linuxstuff.mojo.licensing;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
 import org.linuxstuff.mojo.licensing.model.LicensingReport;
 
 /**
  * Aggregate mojo. Will walk your reactor building in memory licensing reports
- * making them into one giant report. This mojo <b>does not</b> check for
+ * making them into one giant report, spilling to disk when
+ * {@code maxArtifactsInMemory} is set. This mojo <b>does not</b> check for
  * missing or disliked artifacts (use {@code CheckMojo} for that).
  * 
  * @goal aggregate
@@ -22,6 +33,8 @@ import org.linuxstuff.mojo.licensing.model.LicensingReport;
  */
 public class AggregateReportMojo extends CheckMojo {
 
+	private static final String RUN_DIRECTORY = "licensing-aggregation-runs";
+
 	/**
 	 * Maven ProjectHelper.
 	 * 
@@ -30,6 +43,20 @@ public class AggregateReportMojo extends CheckMojo {
 	 */
 	private MavenProjectHelper projectHelper;
 
+	/**
+	 * Memory budget for aggregation, as the number of artifacts held in
+	 * memory. Once the combined module reports reach it they are spilled to a
+	 * sorted run file in the build directory, and the aggregated report is
+	 * merged from the runs when it is written. {@code 0} keeps everything in
+	 * memory and evaluates each distinct dependency of the reactor once. With
+	 * a budget, or with {@code streamingMerge}, modules are evaluated a few at
+	 * a time and a dependency is evaluated for every module using it.
+	 * 
+	 * @parameter expression="${licensing.maxArtifactsInMemory}" default-value="0"
+	 * @since 1.7.11
+	 */
+	private int maxArtifactsInMemory;
+
 	/**
 	 * The projects in the reactor for aggregation report.
 	 * 
@@ -49,21 +76,122 @@ public class AggregateReportMojo extends CheckMojo {
 
 		readLicensingRequirements();
 
-		LicensingReport bigReport = new LicensingReport();
+		File file = new File(project.getBuild().getDirectory(), aggregatedThirdPartyLicensingFilename);
 
+		SpillingReportAggregator aggregator = new SpillingReportAggregator(new File(project.getBuild().getDirectory(), RUN_DIRECTORY),
+				streamingMerge ? 1 : maxArtifactsInMemory);
+		LicensingIndex index = writeIndex ? new LicensingIndex() : null;
+		List<MavenProject> reporting = new ArrayList<MavenProject>();
 		for (MavenProject project : reactorProjects) {
 
 			if (shouldReportOn(project)) {
-				LicensingReport report = generateReport(project);
+				reporting.add(project);
+			}
+		}
+
+		try {
+			if (streamingMerge || maxArtifactsInMemory > 0) {
+				// only as many module reports as can be evaluated at once are
+				// held before they go to the aggregator
+				int batchSize = getThreads();
+				for (int from = 0; from < reporting.size(); from += batchSize) {
+					List<MavenProject> batch = reporting.subList(from, Math.min(from + batchSize, reporting.size()));
+					aggregator.add(evaluateModules(batch, index));
+				}
+			} else {
+				aggregator.add(evaluateUniqueDependencies(reporting, index));
+			}
 
-				bigReport.combineWith(report);
+			if (aggregator.hasSpilled()) {
+				mergeReports(aggregator.finishRuns(), file);
+			} else {
+				writeReport(aggregator.getReport(), file);
 			}
+		} finally {
+			shutdownExecutor();
+			aggregator.deleteRuns();
 		}
 
-		File file = new File(project.getBuild().getDirectory(), aggregatedThirdPartyLicensingFilename);
+		if (index != null) {
+			index.write(getIndexFile());
+		}
+
+	}
 
-		bigReport.writeReport(file);
+	/**
+	 * Generate the reports of the modules on a fork/join pool and combine
+	 * them in reactor order, so the result does not depend on which module
+	 * finishes first. The dependencies of all modules are resolved first, one
+	 * module after the other, since the {@code MavenProjectBuilder} behind
+	 * the {@code DependenciesTool} is not known to be thread-safe; only their
+	 * evaluation runs in parallel. While several modules run at once each
+	 * evaluates its own dependencies on one thread. A module is indexed as
+	 * using its own dependencies only, not the artifacts the licensing
+	 * requirements declare as missing, which every report contains.
+	 */
+	LicensingReport evaluateModules(List<MavenProject> modules, final LicensingIndex index) throws MojoExecutionException {
+		final int dependencyThreads = modules.size() > 1 ? 1 : getThreads();
+
+		List<Callable<LicensingReport>> evaluations = new ArrayList<Callable<LicensingReport>>();
+		for (final MavenProject module : modules) {
+			final Collection<MavenProject> dependencies = getProjectDependencies(module);
+			evaluations.add(new Callable<LicensingReport>() {
+				@Override
+				public LicensingReport call() throws MojoExecutionException {
+					LicensingReport report = evaluate(dependencies, dependencyThreads);
+					if (index != null) {
+						List<String> used = new ArrayList<String>(dependencies.size());
+						for (MavenProject dependency : dependencies) {
+							used.add(dependency.getId());
+						}
+						index.addArtifacts(report);
+						index.addModule(module.getId(), used);
+					}
+					return report;
+				}
+			});
+		}
+
+		return ParallelReports.combine(evaluations, getThreads());
+	}
+
+	/**
+	 * Resolve the dependencies of all modules one after the other, sharing
+	 * resolved POMs between them so each is built once, and evaluate each
+	 * distinct dependency once rather than once per module using it, in
+	 * parallel. A dependency keeps the POM it has in the first module in
+	 * reactor order. Which modules use which dependencies only goes into the
+	 * {@code index}.
+	 */
+	LicensingReport evaluateUniqueDependencies(List<MavenProject> modules, LicensingIndex index) throws MojoExecutionException {
+		SortedMap<String, MavenProject> cache = new TreeMap<String, MavenProject>();
+
+		Map<String, MavenProject> dependencies = new LinkedHashMap<String, MavenProject>();
+		Map<String, Set<String>> membership = new LinkedHashMap<String, Set<String>>();
+		for (MavenProject module : modules) {
+			Set<String> used = new HashSet<String>();
+			for (MavenProject dependency : getProjectDependencies(module, cache)) {
+				if (!dependencies.containsKey(dependency.getId())) {
+					dependencies.put(dependency.getId(), dependency);
+				}
+				used.add(dependency.getId());
+			}
+			membership.put(module.getId(), used);
+		}
+		getLog().debug("Evaluating " + dependencies.size() + " distinct dependencies of " + modules.size() + " modules");
+
+		LicensingReport report = evaluate(dependencies.values(), getThreads());
+
+		if (index != null) {
+			// the artifacts declared missing are in the report, not used by
+			// any module
+			index.addArtifacts(report);
+			for (Map.Entry<String, Set<String>> module : membership.entrySet()) {
+				index.addModule(module.getKey(), module.getValue());
+			}
+		}
 
+		return report;
 	}
 
 	private boolean shouldReportOn(MavenProject project) {
@@ -0,0 +1,500 @@
+package org.linuxstuff.mojo.licensing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+/**
+ * Remembers between builds which module reports went into the aggregated
+ * report: the content hash of each, its parsed contribution stored as NDJSON
+ * under that hash, and the aggregate itself with what every module added to
+ * each of its artifacts. When no module report changed, none was added or
+ * removed and the output settings are the same, aggregation can be skipped
+ * altogether. Otherwise the contributions of changed and removed modules are
+ * taken out of the previous aggregate and those of changed and added modules
+ * put in, so only their reports are parsed.
+ *
+ * @see CollectReportsMojo
+ */
+class AggregationManifest {
+
+	private static final String MANIFEST = "manifest.properties";
+	private static final String AGGREGATE = "aggregate.bin";
+	private static final String OUTPUT_KEY = "#output";
+	private static final String CONTRIBUTION_SUFFIX = ReportFormat.NDJSON.getExtension();
+
+	private static final int AGGREGATE_VERSION = 1;
+
+	private static final int LICENSED = 0;
+	private static final int MISSING = 1;
+	private static final int DISLIKED = 2;
+
+	/**
+	 * An artifact of one section of the aggregate: the name each module using
+	 * it gives it, and for each license how many of those modules have it.
+	 */
+	private static class Aggregated {
+
+		final Map<String, String> names = new HashMap<String, String>();
+		final Map<String, Integer> licenses = new HashMap<String, Integer>();
+	}
+
+	private final File directory;
+
+	private final Properties previous = new Properties();
+
+	private final Properties current = new Properties();
+
+	/**
+	 * The hash of each module report in {@link #sections}, which may be
+	 * missing or belong to an older build than {@link #previous}.
+	 */
+	private final Map<String, String> aggregated = new HashMap<String, String>();
+
+	/**
+	 * The licensed, missing and disliked artifacts of the aggregate, at
+	 * {@link #LICENSED}, {@link #MISSING} and {@link #DISLIKED}.
+	 */
+	private final List<SortedMap<String, Aggregated>> sections = new ArrayList<SortedMap<String, Aggregated>>(DISLIKED + 1);
+
+	private Map<String, Set<String>> artifactsPerModule;
+
+	AggregationManifest(File directory) throws MojoExecutionException {
+		this.directory = directory;
+		for (int i = LICENSED; i <= DISLIKED; i++) {
+			sections.add(new TreeMap<String, Aggregated>());
+		}
+
+		File manifest = new File(directory, MANIFEST);
+		if (manifest.canRead()) {
+			try (InputStream in = new FileInputStream(manifest)) {
+				previous.load(in);
+			} catch (IOException e) {
+				throw new MojoExecutionException("Could not read " + manifest, e);
+			}
+		}
+
+		File aggregate = new File(directory, AGGREGATE);
+		if (aggregate.canRead()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(aggregate)))) {
+				readAggregate(in);
+			} catch (IOException e) {
+				// start over rather than fail the build on bookkeeping
+				clearAggregate();
+			}
+		}
+	}
+
+	/**
+	 * Hash the module reports and check them against the previous build.
+	 *
+	 * @param output
+	 *            describes the aggregated report to write, a different
+	 *            description means it has to be written again
+	 */
+	boolean isUpToDate(List<File> moduleReports, String output) throws MojoExecutionException {
+		current.clear();
+		current.setProperty(OUTPUT_KEY, output);
+		for (File report : moduleReports) {
+			current.setProperty(report.getAbsolutePath(), hash(report));
+		}
+		return current.equals(previous);
+	}
+
+	/**
+	 * Bring the stored aggregate up to date with the module reports and
+	 * return it. An artifact used by several modules keeps the name it has in
+	 * the first of them in list order and gets the licenses of all, as
+	 * {@link LicensingReport#combineWith(LicensingReport)} would give.
+	 *
+	 * @param threads
+	 *            how many changed module reports are parsed at the same time
+	 */
+	LicensingReport aggregate(List<File> moduleReports, int threads) throws MojoExecutionException {
+		Map<String, String> hashes = new LinkedHashMap<String, String>();
+		for (File report : moduleReports) {
+			String key = report.getAbsolutePath();
+			String hash = current.getProperty(key);
+			if (hash == null) {
+				hash = hash(report);
+				current.setProperty(key, hash);
+			}
+			hashes.put(key, hash);
+		}
+
+		if (!subtractChanged(hashes)) {
+			clearAggregate();
+		}
+
+		List<File> changed = new ArrayList<File>();
+		for (File report : moduleReports) {
+			if (!aggregated.containsKey(report.getAbsolutePath())) {
+				changed.add(report);
+			}
+		}
+		List<LicensingReport> contributions = contributionsOf(changed, hashes, threads);
+		for (int i = 0; i < changed.size(); i++) {
+			String key = changed.get(i).getAbsolutePath();
+			add(key, contributions.get(i));
+			aggregated.put(key, hashes.get(key));
+		}
+
+		return toReport(new ArrayList<String>(hashes.keySet()));
+	}
+
+	/**
+	 * @return the ids of the artifacts a module report contributes to the
+	 *         aggregate, in any section.
+	 */
+	Set<String> getArtifactIds(File moduleReport) {
+		if (artifactsPerModule == null) {
+			artifactsPerModule = new HashMap<String, Set<String>>();
+			for (SortedMap<String, Aggregated> section : sections) {
+				for (Map.Entry<String, Aggregated> artifact : section.entrySet()) {
+					for (String module : artifact.getValue().names.keySet()) {
+						Set<String> ids = artifactsPerModule.get(module);
+						if (ids == null) {
+							ids = new TreeSet<String>();
+							artifactsPerModule.put(module, ids);
+						}
+						ids.add(artifact.getKey());
+					}
+				}
+			}
+		}
+		Set<String> ids = artifactsPerModule.get(moduleReport.getAbsolutePath());
+		return ids == null ? Collections.<String> emptySet() : ids;
+	}
+
+	/**
+	 * Take out the contributions of modules that changed or are gone.
+	 *
+	 * @return {@code false} if a contribution to take out is not there
+	 *         anymore, so the aggregate has to be built from scratch.
+	 */
+	private boolean subtractChanged(Map<String, String> hashes) throws MojoExecutionException {
+		for (Map.Entry<String, String> module : new ArrayList<Map.Entry<String, String>>(aggregated.entrySet())) {
+			if (module.getValue().equals(hashes.get(module.getKey()))) {
+				continue;
+			}
+			File contribution = contribution(module.getValue());
+			if (!contribution.canRead()) {
+				return false;
+			}
+			subtract(module.getKey(), LicensingReport.readReport(contribution));
+			aggregated.remove(module.getKey());
+		}
+		return true;
+	}
+
+	/**
+	 * Module reports with the same content are read once, so no two threads
+	 * write the same contribution.
+	 */
+	private List<LicensingReport> contributionsOf(List<File> moduleReports, Map<String, String> hashes, int threads)
+			throws MojoExecutionException {
+		List<LicensingReport> contributions = new ArrayList<LicensingReport>(moduleReports.size());
+		if (moduleReports.isEmpty()) {
+			return contributions;
+		}
+
+		Map<String, Future<LicensingReport>> reading = new HashMap<String, Future<LicensingReport>>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, moduleReports.size())));
+		try {
+			for (final File report : moduleReports) {
+				final String hash = hashes.get(report.getAbsolutePath());
+				if (!reading.containsKey(hash)) {
+					reading.put(hash, executor.submit(new Callable<LicensingReport>() {
+						@Override
+						public LicensingReport call() throws MojoExecutionException {
+							return contributionOf(report, hash);
+						}
+					}));
+				}
+			}
+			for (File report : moduleReports) {
+				contributions.add(reading.get(hashes.get(report.getAbsolutePath())).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while reading module reports.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MojoExecutionException) {
+				throw (MojoExecutionException) e.getCause();
+			}
+			throw new MojoExecutionException("Could not read module reports.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return contributions;
+	}
+
+	/**
+	 * Read a module report, from its stored contribution if there is one for
+	 * its content already.
+	 */
+	private LicensingReport contributionOf(File moduleReport, String hash) throws MojoExecutionException {
+		File contribution = contribution(hash);
+		if (contribution.canRead()) {
+			return LicensingReport.readReport(contribution);
+		}
+
+		LicensingReport report = parse(moduleReport);
+		report.writeReport(contribution, ReportFormat.NDJSON);
+		return report;
+	}
+
+	/**
+	 * Parse a module report; only called for reports whose content is not
+	 * known from an earlier build.
+	 */
+	LicensingReport parse(File moduleReport) throws MojoExecutionException {
+		return LicensingReport.readReport(moduleReport);
+	}
+
+	private void add(String module, LicensingReport contribution) {
+		add(module, contribution.getLicensedArtifacts(), sections.get(LICENSED));
+		add(module, contribution.getLicenseMissing(), sections.get(MISSING));
+		add(module, contribution.getDislikedArtifacts(), sections.get(DISLIKED));
+		artifactsPerModule = null;
+	}
+
+	private static void add(String module, Set<ArtifactWithLicenses> artifacts, SortedMap<String, Aggregated> section) {
+		for (ArtifactWithLicenses artifact : artifacts) {
+			Aggregated aggregated = section.get(artifact.getArtifactId());
+			if (aggregated == null) {
+				aggregated = new Aggregated();
+				section.put(artifact.getArtifactId(), aggregated);
+			}
+			aggregated.names.put(module, artifact.getName());
+			if (artifact.getLicenses() != null) {
+				for (String license : artifact.getLicenses()) {
+					Integer count = aggregated.licenses.get(license);
+					aggregated.licenses.put(license, count == null ? 1 : count + 1);
+				}
+			}
+		}
+	}
+
+	private void subtract(String module, LicensingReport contribution) {
+		subtract(module, contribution.getLicensedArtifacts(), sections.get(LICENSED));
+		subtract(module, contribution.getLicenseMissing(), sections.get(MISSING));
+		subtract(module, contribution.getDislikedArtifacts(), sections.get(DISLIKED));
+		artifactsPerModule = null;
+	}
+
+	private static void subtract(String module, Set<ArtifactWithLicenses> artifacts, SortedMap<String, Aggregated> section) {
+		for (ArtifactWithLicenses artifact : artifacts) {
+			Aggregated aggregated = section.get(artifact.getArtifactId());
+			if (aggregated == null || !aggregated.names.containsKey(module)) {
+				continue;
+			}
+			aggregated.names.remove(module);
+			if (aggregated.names.isEmpty()) {
+				section.remove(artifact.getArtifactId());
+				continue;
+			}
+			if (artifact.getLicenses() != null) {
+				for (String license : artifact.getLicenses()) {
+					Integer count = aggregated.licenses.get(license);
+					if (count == null || count <= 1) {
+						aggregated.licenses.remove(license);
+					} else {
+						aggregated.licenses.put(license, count - 1);
+					}
+				}
+			}
+		}
+	}
+
+	private LicensingReport toReport(List<String> modules) {
+		Map<String, Integer> order = new HashMap<String, Integer>();
+		for (int i = 0; i < modules.size(); i++) {
+			order.put(modules.get(i), i);
+		}
+
+		LicensingReport report = new LicensingReport();
+		for (int i = 0; i < sections.size(); i++) {
+			for (Map.Entry<String, Aggregated> entry : sections.get(i).entrySet()) {
+				Aggregated aggregated = entry.getValue();
+				String first = null;
+				for (String module : aggregated.names.keySet()) {
+					if (first == null || order.get(module) < order.get(first)) {
+						first = module;
+					}
+				}
+				ArtifactWithLicenses artifact = new ArtifactWithLicenses(entry.getKey(), aggregated.names.get(first));
+				artifact.setLicenses(new HashSet<String>(aggregated.licenses.keySet()));
+				if (i == LICENSED) {
+					report.addLicensedArtifact(artifact);
+				} else if (i == MISSING) {
+					report.addMissingLicense(artifact);
+				} else {
+					report.addDislikedArtifact(artifact);
+				}
+			}
+		}
+		return report;
+	}
+
+	private void clearAggregate() {
+		aggregated.clear();
+		for (SortedMap<String, Aggregated> section : sections) {
+			section.clear();
+		}
+		artifactsPerModule = null;
+	}
+
+	/**
+	 * Store the manifest and the aggregate for the next build and drop
+	 * contributions nobody refers to anymore.
+	 */
+	void save() throws MojoExecutionException {
+		File manifest = new File(directory, MANIFEST);
+		File temporary = null;
+		try {
+			temporary = FileUtil.createTemporaryFile(manifest);
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary))) {
+				current.store(out, "Module reports in the aggregated licensing report");
+			}
+			FileUtil.replaceIfChanged(manifest, temporary);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not write " + manifest, e);
+		} finally {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+
+		File aggregate = new File(directory, AGGREGATE);
+		temporary = null;
+		try {
+			temporary = FileUtil.createTemporaryFile(aggregate);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				writeAggregate(out);
+			}
+			FileUtil.replaceIfChanged(aggregate, temporary);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not write " + aggregate, e);
+		} finally {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+
+		Set<String> referenced = new HashSet<String>();
+		for (String key : current.stringPropertyNames()) {
+			referenced.add(current.getProperty(key) + CONTRIBUTION_SUFFIX);
+		}
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(CONTRIBUTION_SUFFIX) && !referenced.contains(file.getName())) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private void writeAggregate(DataOutputStream out) throws IOException {
+		out.writeInt(AGGREGATE_VERSION);
+		out.writeInt(aggregated.size());
+		for (Map.Entry<String, String> module : new TreeMap<String, String>(aggregated).entrySet()) {
+			out.writeUTF(module.getKey());
+			out.writeUTF(module.getValue());
+		}
+		for (SortedMap<String, Aggregated> section : sections) {
+			out.writeInt(section.size());
+			for (Map.Entry<String, Aggregated> artifact : section.entrySet()) {
+				out.writeUTF(artifact.getKey());
+				Map<String, String> names = new TreeMap<String, String>(artifact.getValue().names);
+				out.writeInt(names.size());
+				for (Map.Entry<String, String> name : names.entrySet()) {
+					out.writeUTF(name.getKey());
+					writeNullable(out, name.getValue());
+				}
+				Map<String, Integer> licenses = artifact.getValue().licenses;
+				out.writeInt(licenses.size());
+				for (Map.Entry<String, Integer> license : licenses.entrySet()) {
+					writeNullable(out, license.getKey());
+					out.writeInt(license.getValue());
+				}
+			}
+		}
+	}
+
+	private void readAggregate(DataInputStream in) throws IOException {
+		if (in.readInt() != AGGREGATE_VERSION) {
+			return;
+		}
+		for (int modules = in.readInt(); modules > 0; modules--) {
+			aggregated.put(in.readUTF(), in.readUTF());
+		}
+		for (SortedMap<String, Aggregated> section : sections) {
+			for (int artifacts = in.readInt(); artifacts > 0; artifacts--) {
+				String id = in.readUTF();
+				Aggregated artifact = new Aggregated();
+				for (int names = in.readInt(); names > 0; names--) {
+					artifact.names.put(in.readUTF(), readNullable(in));
+				}
+				for (int licenses = in.readInt(); licenses > 0; licenses--) {
+					artifact.licenses.put(readNullable(in), in.readInt());
+				}
+				section.put(id, artifact);
+			}
+		}
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private File contribution(String hash) {
+		return new File(directory, hash + CONTRIBUTION_SUFFIX);
+	}
+
+	private static String hash(File report) throws MojoExecutionException {
+		try {
+			return FileUtil.sha256(report);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read report " + report, e);
+		}
+	}
+
+}
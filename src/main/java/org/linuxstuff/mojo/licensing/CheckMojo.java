@@ -5,12 +5,28 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.ConcurrentLicensingReport;
+import org.linuxstuff.mojo.licensing.model.LicenseGrouping;
 import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.NormalizedTextDigest;
+import org.linuxstuff.mojo.licensing.model.ReportAccumulator;
+import org.linuxstuff.mojo.licensing.model.TextTemplate;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Determine licensing information of all dependencies. This is generally
@@ -74,6 +90,29 @@ public class CheckMojo extends AbstractLicensingMojo {
      */
     protected String listPrependText;
 
+    /**
+     * Layout of the text-based report, a properties file with templates for
+     * its parts. See {@code TextTemplate} for the parts and placeholders.
+     * Without it the built-in layout is used.
+     * <p>
+     * Being a properties file, a backslash in a template starts an escape and
+     * leading whitespace is trimmed: write {@code \\} for a backslash,
+     * {@code \n} for a line break and {@code \u005cu0020} for a leading space.
+     * 
+     * @parameter expression="${licensing.textTemplate}"
+     * @since 1.7.11
+     */
+    protected String textTemplate;
+
+    /**
+     * Layout of the text-based report with full license texts, like
+     * {@code textTemplate}.
+     * 
+     * @parameter expression="${licensing.listTemplate}"
+     * @since 1.7.11
+     */
+    protected String listTemplate;
+
     /**
      * File to prepend to the text-based report.
      * 
@@ -114,6 +153,19 @@ public class CheckMojo extends AbstractLicensingMojo {
      */
     protected boolean overwrite;
 
+    /**
+     * Only find out whether the build passes: direct dependencies are checked
+     * first, loading stops at the first artifact that fails the build and no
+     * reports are written. Only has an effect together with
+     * {@code failIfDisliked} or {@code failIfMissing}.
+     * 
+     * @parameter expression="${licensing.failFast}" default-value="false"
+     * @since 1.7.11
+     */
+    protected boolean failFast;
+
+    private ExecutorService executor;
+
     /**
      * Fail the build if any dependencies are either under disliked licenses or
      * are missing licensing information.
@@ -128,43 +180,163 @@ public class CheckMojo extends AbstractLicensingMojo {
 
 		readLicensingRequirements();
 
-		LicensingReport report = generateReport(project);
+		if (failFast && (failIfDisliked || failIfMissing)) {
+			checkForFailure(generateReportFailingFast(project));
+			return;
+		}
+
+		LicensingReport report;
+		try {
+			report = generateReport(project);
+		} finally {
+			shutdownExecutor();
+		}
 
 		File file = new File(project.getBuild().getDirectory(), thirdPartyLicensingFilename);
 
 		if (plainTextReport) {
-            // notice file
-	        report.writeTextReport(file, locator, prependText, appendText, true, false);
-            compareToExistingFile( file, checkExistingNoticeFile );
-	        if (listReport != null) {
-                // licenses file
-	            file = new File(project.getBuild().getDirectory(), listReport);
-	            report.writeTextReport(file, locator, listPrependText, null, false, true);
-                compareToExistingFile( file, checkExistingLicensesFile );
-	        }
+		    writeTextReports(report, file);
 		} else {
-		    report.writeReport(file);
+		    writeReport(report, file);
 		}
 		
 		checkForFailure(report);
 
 	}
 
+    /**
+     * Write the notice file and, if asked for, the licenses file. Both are
+     * rendered from the same grouping of the report, and written at the same
+     * time since they do not depend on each other.
+     */
+    private void writeTextReports( final LicensingReport report, final File noticeFile ) throws MojoExecutionException
+    {
+        final LicenseGrouping grouping = report.groupByLicense();
+        final TextTemplate noticeTemplate = TextTemplate.forResource( getTextResourceCache(), locator, textTemplate );
+
+        Callable<Void> notice = new Callable<Void>()
+        {
+            @Override
+            public Void call() throws MojoExecutionException
+            {
+                writeTextReport( report, grouping, noticeTemplate, noticeFile, checkExistingNoticeFile, prependText, appendText, true, false );
+                return null;
+            }
+        };
+
+        if ( listReport == null )
+        {
+            call( notice );
+            return;
+        }
+
+        final File licensesFile = new File( project.getBuild().getDirectory(), listReport );
+        final TextTemplate licensesTemplate = TextTemplate.forResource( getTextResourceCache(), locator, listTemplate );
+        Callable<Void> licenses = new Callable<Void>()
+        {
+            @Override
+            public Void call() throws MojoExecutionException
+            {
+                writeTextReport( report, grouping, licensesTemplate, licensesFile, checkExistingLicensesFile, listPrependText, null, false, true );
+                return null;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Future<Void> writingNotice = executor.submit( notice );
+            Future<Void> writingLicenses = executor.submit( licenses );
+
+            await( writingNotice );
+            await( writingLicenses );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write one text report. If it is to be checked against an existing file
+     * it is written to a temporary file, its digest computed on the way, and
+     * only that digest is compared with the existing file's, so when they
+     * match the report is dropped again.
+     */
+    private void writeTextReport( LicensingReport report, LicenseGrouping grouping, TextTemplate template, File file, String existingFileName,
+            String prepend, String append, boolean includeDualList, boolean includeFullLicense )
+            throws MojoExecutionException
+    {
+        if ( existingFileName == null )
+        {
+            report.writeTextReport( file, locator, getTextResourceCache(), grouping, template, prepend, append, includeDualList, includeFullLicense );
+            return;
+        }
+
+        try
+        {
+            File generated = FileUtil.createTemporaryFile( file );
+            try
+            {
+                byte[] digest = report.writeDigestedTextReport( generated, locator, getTextResourceCache(), grouping, template, prepend, append,
+                        includeDualList, includeFullLicense );
+                compareToExistingFile( generated, digest, file, existingFileName );
+            }
+            finally
+            {
+                Files.deleteIfExists( generated.toPath() );
+            }
+        }
+        catch ( IOException ioe )
+        {
+            throw new MojoExecutionException( "Could not compare files.", ioe );
+        }
+    }
+
+    private static void call( Callable<Void> task ) throws MojoExecutionException
+    {
+        try
+        {
+            task.call();
+        }
+        catch ( MojoExecutionException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Could not write report.", e );
+        }
+    }
+
+    protected static <T> T await( Future<T> task ) throws MojoExecutionException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException( "Interrupted while generating reports.", e );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof MojoExecutionException )
+            {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException( "Could not generate report.", e.getCause() );
+        }
+    }
+
     void compareToExistingFile( File file, String existingFileName ) throws MojoExecutionException
     {
         if ( existingFileName != null )
         {
-            File existingFile = FileUtils.getFile( existingFileName );
             try
             {
-                if ( !FileUtils.contentEqualsIgnoreEOL( file, existingFile, null ) )
-                {
-                    generatedAndExistingDiffer( file, existingFile );
-                }
-                else
-                {
-                    getLog().info( "File confirmed: " + existingFileName );
-                }
+                compareToExistingFile( file, NormalizedTextDigest.of( file ), file, existingFileName );
             }
             catch ( IOException ioe )
             {
@@ -174,6 +346,31 @@ public class CheckMojo extends AbstractLicensingMojo {
         }
     }
 
+    /**
+     * @param generated
+     *            the generated report, moved to {@code file} if it differs
+     *            from the existing file
+     * @param digest
+     *            the {@link NormalizedTextDigest} of {@code generated}
+     */
+    private void compareToExistingFile( File generated, byte[] digest, File file, String existingFileName )
+            throws MojoExecutionException, IOException
+    {
+        File existingFile = FileUtils.getFile( existingFileName );
+        if ( existingFile.isFile() && Arrays.equals( digest, NormalizedTextDigest.of( existingFile ) ) )
+        {
+            getLog().info( "File confirmed: " + existingFileName );
+        }
+        else
+        {
+            if ( !generated.equals( file ) )
+            {
+                Files.move( generated.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+            }
+            generatedAndExistingDiffer( file, existingFile );
+        }
+    }
+
     protected void generatedAndExistingDiffer( File file, File existingFile )
             throws MojoExecutionException
     {
@@ -201,86 +398,177 @@ public class CheckMojo extends AbstractLicensingMojo {
         }
     }
 
-	protected LicensingReport generateReport(MavenProject project) {
+	protected LicensingReport generateReport(MavenProject project) throws MojoExecutionException {
+		return generateReport(project, getThreads());
+	}
 
-		LicensingReport aReport = new LicensingReport();
+	/**
+	 * @param threads
+	 *            how many dependencies to evaluate at the same time, for
+	 *            callers that already run several reports in parallel
+	 */
+	protected LicensingReport generateReport(MavenProject project, int threads) throws MojoExecutionException {
+		return evaluate(getProjectDependencies(project), threads);
+	}
 
-		Collection<MavenProject> projects = getProjectDependencies(project);
-		for (MavenProject mavenProject : projects) {
+	/**
+	 * Evaluate the licenses of {@code projects}, plus the artifacts the
+	 * licensing requirements declare as missing.
+	 */
+	protected LicensingReport evaluate(Collection<MavenProject> projects, int threads) throws MojoExecutionException {
 
-			ArtifactWithLicenses entry = new ArtifactWithLicenses();
+		threads = Math.min(threads, projects.size());
+		if (threads <= 1) {
+			LicensingReport aReport = new LicensingReport();
+			for (MavenProject mavenProject : projects) {
+				addToReport(aReport, mavenProject);
+			}
 
-			entry.setArtifactId(mavenProject.getId());
-			entry.setName(mavenProject.getName());
+			addMissingArtifacts(aReport);
 
-			Set<String> licenses = collectLicensesForMavenProject(mavenProject);
+			return aReport;
+		}
 
-			if (licenses.isEmpty()) {
-				getLog().warn("Licensing: The artifact " + entry.getArtifactId() + " has no license specified.");
-				aReport.addMissingLicense(entry);
-			} else {
-				for (String license : licenses) {
-					if (includeOnlyLikedInReport && licensingRequirements.containsLikedLicenses()) {
-						if (licensingRequirements.isLikedLicense( license )) {
-							entry.addLicense(license);
-						}
-					}
-					else {
-						entry.addLicense(license);
-					}
+		final ConcurrentLicensingReport accumulator = new ConcurrentLicensingReport();
+		ExecutorService executor = getExecutor();
+		List<Future<Void>> evaluations = new ArrayList<Future<Void>>(projects.size());
+		for (final MavenProject mavenProject : projects) {
+			evaluations.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					addToReport(accumulator, mavenProject);
+					return null;
 				}
+			}));
+		}
+		for (Future<Void> evaluation : evaluations) {
+			await(evaluation);
+		}
 
-                licensingRequirements.normalizeLicenses( entry );
+		addMissingArtifacts(accumulator);
 
-                if ( isDisliked( entry ) )
-                {
-                    getLog().warn(
-                            "Licensing: The artifact " + entry.getArtifactId()
-                                    + " is only under disliked licenses: " + licenses );
-					aReport.addDislikedArtifact(entry);
-				} else {
-					aReport.addLicensedArtifact(entry);
-				}
-			}
+		return accumulator.freeze();
+	}
+
+	/**
+	 * @return the pool dependencies are evaluated on, created on first use
+	 *         with {@code threads} threads and shared by the whole execution.
+	 * @see #shutdownExecutor()
+	 */
+	protected synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(getThreads());
 		}
-		
+		return executor;
+	}
+
+	/**
+	 * Stop the pool of {@link #getExecutor()}, once the execution is done
+	 * with it.
+	 */
+	protected synchronized void shutdownExecutor() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Like {@link #generateReport(MavenProject)}, but stop as soon as the
+	 * report would fail the build. The returned report is incomplete.
+	 */
+	protected LicensingReport generateReportFailingFast(MavenProject project) {
+
+		final LicensingReport aReport = new LicensingReport();
+
+		addMissingArtifacts(aReport);
+		if (wouldFail(aReport)) {
+			return aReport;
+		}
+
+		getLog().debug("Checking dependencies for project: " + project.getId() + ", failing fast");
+		dependenciesTool.visitProjectDependencies(project, this, localRepository, getRemoteRepositories(), null, new DependencyVisitor() {
+			@Override
+			public boolean visit(String id, MavenProject dependency) {
+				addToReport(aReport, dependency);
+				return !wouldFail(aReport);
+			}
+		});
+
+		return aReport;
+	}
+
+	private boolean wouldFail(LicensingReport report) {
+		return (failIfDisliked && !report.getDislikedArtifacts().isEmpty()) || (failIfMissing && !report.getLicenseMissing().isEmpty());
+	}
+
+	private void addToReport(ReportAccumulator aReport, MavenProject mavenProject) {
+
+		ArtifactWithLicenses entry = new ArtifactWithLicenses();
+
+		entry.setArtifactId(mavenProject.getId());
+		entry.setName(mavenProject.getName());
+
+		addToReport(aReport, entry, collectLicensesForMavenProject(mavenProject));
+	}
+
+	/**
+	 * Add the artifacts the licensing requirements declare as missing.
+	 */
+	private void addMissingArtifacts(ReportAccumulator aReport) {
+
 		for (ArtifactWithLicenses artifactWithLicenses : licensingRequirements.getMissingArtifacts()) {
             ArtifactWithLicenses entry = new ArtifactWithLicenses(
                     artifactWithLicenses.getArtifactId(),
                     artifactWithLicenses.getName() );
-            Set<String> licenses = artifactWithLicenses.getLicenses();
-
-            if (licenses.isEmpty()) {
-                getLog().warn("Licensing: The artifact " + entry.getArtifactId() + " has no license specified.");
-                aReport.addMissingLicense(entry);
-            } else {
-                for (String license : licenses) {
-                    String correct = licensingRequirements.getCorrectLicenseName( license );
-                    if (includeOnlyLikedInReport && licensingRequirements.containsLikedLicenses()) {
-                        if (licensingRequirements.isLikedLicense( correct )) {
-                            entry.addLicense(correct);
-                        }
-                    }
-                    else {
-                        entry.addLicense(correct);
-                    }
-                }
-
-                licensingRequirements.normalizeLicenses( entry );
-
-                if (isDisliked(entry)) {
-                    getLog().warn(
-                            "Licensing: The artifact " + entry.getArtifactId()
-                                    + " is only under disliked licenses: "
-                                    + licenses );
-                    aReport.addDislikedArtifact(entry);
-                } else {
-                    aReport.addLicensedArtifact(entry);
-                }
+
+            Set<String> licenses = new HashSet<String>();
+            for (String license : artifactWithLicenses.getLicenses()) {
+                licenses.add( licensingRequirements.getCorrectLicenseName( license ) );
             }
+
+            addToReport( aReport, entry, licenses );
 		}
+	}
 
-		return aReport;
+	/**
+	 * File the {@code entry} under missing, disliked or licensed artifacts.
+	 * 
+	 * @param licenses
+	 *            the coalesced licenses of the artifact
+	 */
+	private void addToReport(ReportAccumulator aReport, ArtifactWithLicenses entry, Set<String> licenses) {
+
+		if (licenses.isEmpty()) {
+			getLog().warn("Licensing: The artifact " + entry.getArtifactId() + " has no license specified.");
+			aReport.addMissingLicense(entry);
+			return;
+		}
+
+		Set<String> reported = new HashSet<String>();
+		for (String license : licenses) {
+			if (includeOnlyLikedInReport && licensingRequirements.containsLikedLicenses()) {
+				if (licensingRequirements.isAcceptableLicense( license )) {
+					reported.add(license);
+				}
+			}
+			else {
+				reported.add(license);
+			}
+		}
+		entry.addLicenses(reported);
+
+        licensingRequirements.normalizeLicenses( entry );
+
+        if ( isDisliked( entry ) )
+        {
+            getLog().warn(
+                    "Licensing: The artifact " + entry.getArtifactId()
+                            + " is only under disliked licenses: " + licenses );
+			aReport.addDislikedArtifact(entry);
+		} else {
+			aReport.addLicensedArtifact(entry);
+		}
 	}
 
 	protected void checkForFailure(LicensingReport report) throws MojoFailureException {
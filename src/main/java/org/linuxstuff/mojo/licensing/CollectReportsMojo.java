@@ -1,18 +1,20 @@
 package org.linuxstuff.mojo.licensing;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
-import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
 import org.linuxstuff.mojo.licensing.model.LicensingReport;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.StaxDriver;
-
 /**
  * @goal collect-reports
  * @requiresProject true
@@ -21,13 +23,15 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
  */
 public class CollectReportsMojo extends AbstractLicensingMojo {
 
+	private static final String AGGREGATION_DIRECTORY = "licensing-aggregation";
+
 	/**
 	 * Maven ProjectHelper.
 	 * 
 	 * @component
 	 * @readonly
 	 */
-	private MavenProjectHelper projectHelper;
+	MavenProjectHelper projectHelper;
 
 	/**
 	 * The projects in the reactor for aggregation report.
@@ -36,39 +40,122 @@ public class CollectReportsMojo extends AbstractLicensingMojo {
 	 * @readonly
 	 * @required
 	 */
-	private List<MavenProject> reactorProjects;
+	List<MavenProject> reactorProjects;
 
-	private LicensingReport report;
+	/**
+	 * Remember the module reports and the aggregate between builds, so that
+	 * only changed reports are parsed again and taken out of and put into the
+	 * previous aggregate, and an aggregated report whose inputs did not change
+	 * is not written at all. The bookkeeping is kept in a
+	 * {@code licensing-aggregation} directory in the build directory.
+	 * 
+	 * @parameter expression="${licensing.incrementalAggregation}"
+	 *            default-value="false"
+	 * @since 1.7.11
+	 */
+	boolean incrementalAggregation;
 
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 
 		readLicensingRequirements();
 
-		report = new LicensingReport();
-
-		XStream xstream = new XStream(new StaxDriver());
-		xstream.processAnnotations(ArtifactWithLicenses.class);
-		xstream.processAnnotations(LicensingReport.class);
-
+		List<File> moduleReports = new ArrayList<File>();
+		Map<File, String> modules = new HashMap<File, String>();
 		for (MavenProject p : reactorProjects) {
 
-			File licenseXml = new File(p.getBuild().getDirectory(), thirdPartyLicensingFilename);
+			File licenseXml = findReport(p.getBuild().getDirectory(), thirdPartyLicensingFilename);
 
 			if (licenseXml.canRead()) {
-				LicensingReport artifactReport = (LicensingReport) xstream.fromXML(licenseXml);
-				getLog().debug("Successfully turned " + licenseXml + " into " + artifactReport);
-				report.combineWith(artifactReport);
+				moduleReports.add(licenseXml);
+				modules.put(licenseXml, p.getId());
 			} else {
 				getLog().debug("No report file found at: " + licenseXml.getAbsolutePath());
 			}
 		}
 
 		File outputFile = new File(project.getBuild().getDirectory(), aggregatedThirdPartyLicensingFilename);
-		report.writeReport(outputFile);
 
-		projectHelper.attachArtifact(project, outputFile, "aggregated-third-party-licensing");
+		AggregationManifest manifest = null;
+		if (incrementalAggregation) {
+			manifest = new AggregationManifest(new File(project.getBuild().getDirectory(), AGGREGATION_DIRECTORY));
+			File expected = getReportFile(outputFile);
+			if (manifest.isUpToDate(moduleReports, describeOutput(expected)) && expected.canRead()
+					&& (!writeIndex || getIndexFile().canRead())) {
+				getLog().info("Licensing: " + expected + " is up to date.");
+				attach(expected);
+				return;
+			}
+		}
+
+		LicensingIndex index = writeIndex ? new LicensingIndex() : null;
 
+		if (streamingMerge) {
+			List<String> moduleIds = new ArrayList<String>(moduleReports.size());
+			for (File licenseXml : moduleReports) {
+				moduleIds.add(modules.get(licenseXml));
+			}
+			outputFile = mergeReports(moduleReports, outputFile, index, moduleIds);
+		} else if (manifest != null) {
+			LicensingReport aggregate = manifest.aggregate(moduleReports, getThreads());
+			if (index != null) {
+				index.addArtifacts(aggregate);
+				for (File licenseXml : moduleReports) {
+					index.addModule(modules.get(licenseXml), manifest.getArtifactIds(licenseXml));
+				}
+			}
+			outputFile = writeReport(aggregate, outputFile);
+		} else {
+			outputFile = writeReport(combineReports(moduleReports, modules, index), outputFile);
+		}
+
+		if (index != null) {
+			index.write(getIndexFile());
+		}
+
+		if (manifest != null) {
+			manifest.save();
+		}
+
+		attach(outputFile);
+	}
+
+	/**
+	 * @return the settings that decide what an aggregation writes, so a
+	 *         change to any of them makes the previous aggregation out of
+	 *         date.
+	 */
+	private String describeOutput(File report) {
+		return report.getAbsolutePath() + " " + reportFormat + " writeIndex=" + writeIndex + " streamingMerge=" + streamingMerge;
+	}
+
+	private LicensingReport combineReports(List<File> moduleReports, final Map<File, String> modules, final LicensingIndex index)
+			throws MojoExecutionException {
+		List<Callable<LicensingReport>> reading = new ArrayList<Callable<LicensingReport>>();
+		for (final File licenseXml : moduleReports) {
+			reading.add(new Callable<LicensingReport>() {
+				@Override
+				public LicensingReport call() throws MojoExecutionException {
+					LicensingReport artifactReport = LicensingReport.readReport(licenseXml);
+					getLog().debug("Successfully turned " + licenseXml + " into " + artifactReport);
+					if (index != null) {
+						index.addModule(modules.get(licenseXml), artifactReport);
+					}
+					return artifactReport;
+				}
+			});
+		}
+
+		return ParallelReports.combine(reading, getThreads());
+	}
+
+	private void attach(File outputFile) {
+		if (compressReports) {
+			String type = FilenameUtils.getExtension(FilenameUtils.removeExtension(outputFile.getName())) + COMPRESSED_SUFFIX;
+			projectHelper.attachArtifact(project, type, "aggregated-third-party-licensing", outputFile);
+		} else {
+			projectHelper.attachArtifact(project, outputFile, "aggregated-third-party-licensing");
+		}
 	}
 
 }
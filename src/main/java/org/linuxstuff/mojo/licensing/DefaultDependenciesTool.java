@@ -24,6 +24,9 @@
  */
 package org.linuxstuff.mojo.licensing;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
@@ -60,7 +63,7 @@ public class DefaultDependenciesTool extends AbstractLogEnabled implements Depen
 	 * 
 	 * @plexus.requirement
 	 */
-	private MavenProjectBuilder mavenProjectBuilder;
+	MavenProjectBuilder mavenProjectBuilder;
 
 	/**
 	 * {@inheritDoc}
@@ -69,6 +72,27 @@ public class DefaultDependenciesTool extends AbstractLogEnabled implements Depen
 	public SortedMap<String, MavenProject> loadProjectDependencies(MavenProject project, MavenProjectDependenciesConfigurator configuration, ArtifactRepository localRepository,
 			List<ArtifactRepository> remoteRepositories, SortedMap<String, MavenProject> cache) {
 
+		final SortedMap<String, MavenProject> result = new TreeMap<String, MavenProject>();
+
+		visitProjectDependencies(project, configuration, localRepository, remoteRepositories, cache, new DependencyVisitor() {
+			@Override
+			public boolean visit(String id, MavenProject dependency) {
+				// keep the project
+				result.put(id, dependency);
+				return true;
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void visitProjectDependencies(MavenProject project, MavenProjectDependenciesConfigurator configuration, ArtifactRepository localRepository,
+			List<ArtifactRepository> remoteRepositories, SortedMap<String, MavenProject> cache, DependencyVisitor visitor) {
+
 		boolean haveNoIncludedGroups = StringUtils.isEmpty(configuration.getIncludedGroups());
 		boolean haveNoIncludedArtifacts = StringUtils.isEmpty(configuration.getIncludedArtifacts());
 
@@ -94,11 +118,11 @@ public class DefaultDependenciesTool extends AbstractLogEnabled implements Depen
 			excludedArtifactPattern = Pattern.compile(configuration.getExcludedArtifacts());
 		}
 
-		Set<?> depArtifacts;
+		Collection<?> depArtifacts;
 
 		if (configuration.isIncludeTransitiveDependencies()) {
-			// All project dependencies
-			depArtifacts = project.getArtifacts();
+			// All project dependencies, the direct ones first
+			depArtifacts = directDependenciesFirst(project);
 		} else {
 			// Only direct project dependencies
 			depArtifacts = project.getDependencyArtifacts();
@@ -107,8 +131,6 @@ public class DefaultDependenciesTool extends AbstractLogEnabled implements Depen
 		List<String> includedScopes = configuration.getIncludedScopes();
 		List<String> excludeScopes = configuration.getExcludedScopes();
 
-		SortedMap<String, MavenProject> result = new TreeMap<String, MavenProject>();
-
 		for (Object o : depArtifacts) {
 			Artifact artifact = (Artifact) o;
 
@@ -174,11 +196,42 @@ public class DefaultDependenciesTool extends AbstractLogEnabled implements Depen
 				}
 			}
 
-			// keep the project
-			result.put(id, depMavenProject);
+			if (!visitor.visit(id, depMavenProject)) {
+				log.debug("stop loading dependencies after [" + id + "]");
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Order the resolved artifacts so the project's direct dependencies come
+	 * before the transitive ones.
+	 */
+	private Collection<?> directDependenciesFirst(MavenProject project) {
+		Set<?> artifacts = project.getArtifacts();
+		Set<?> direct = project.getDependencyArtifacts();
+
+		if (direct == null || direct.isEmpty()) {
+			return artifacts;
 		}
 
-		return result;
+		Set<String> directIds = new HashSet<String>();
+		for (Object o : direct) {
+			directIds.add(((Artifact) o).getDependencyConflictId());
+		}
+
+		List<Artifact> ordered = new ArrayList<Artifact>(artifacts.size());
+		List<Artifact> transitive = new ArrayList<Artifact>(artifacts.size());
+		for (Object o : artifacts) {
+			Artifact artifact = (Artifact) o;
+			if (directIds.contains(artifact.getDependencyConflictId())) {
+				ordered.add(artifact);
+			} else {
+				transitive.add(artifact);
+			}
+		}
+		ordered.addAll(transitive);
+		return ordered;
 	}
 
 	protected boolean isIncludable(Artifact project, Pattern includedGroupPattern, Pattern includedArtifactPattern) {
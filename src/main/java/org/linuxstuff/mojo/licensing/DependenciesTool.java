@@ -54,10 +54,25 @@ public interface DependenciesTool {
 	 * @param remoteRepositories
 	 *            remote repositories used to resolv dependencies
 	 * @param cache
-	 *            a optional cache where to keep resolved dependencies
+	 *            a optional cache where to keep resolved dependencies, only
+	 *            to be shared by calls made one after the other
 	 * @return the map of resolved dependencies indexed by their unique id.
 	 * @see MavenProjectDependenciesConfigurator
 	 */
 	SortedMap<String, MavenProject> loadProjectDependencies(MavenProject project, MavenProjectDependenciesConfigurator configuration, ArtifactRepository localRepository,
 			List<ArtifactRepository> remoteRepositories, SortedMap<String, MavenProject> cache);
+
+	/**
+	 * Like
+	 * {@link #loadProjectDependencies(MavenProject, MavenProjectDependenciesConfigurator, ArtifactRepository, List, SortedMap)}
+	 * but hands every dependency to the {@code visitor} as soon as it has been
+	 * built, direct dependencies first, and stops as soon as the visitor asks
+	 * it to.
+	 * 
+	 * @param visitor
+	 *            receives the dependencies, returns {@code false} to stop
+	 * @since 1.7.11
+	 */
+	void visitProjectDependencies(MavenProject project, MavenProjectDependenciesConfigurator configuration, ArtifactRepository localRepository,
+			List<ArtifactRepository> remoteRepositories, SortedMap<String, MavenProject> cache, DependencyVisitor visitor);
 }
@@ -0,0 +1,23 @@
+package org.linuxstuff.mojo.licensing;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Receives dependencies one at a time from
+ * {@link DependenciesTool#visitProjectDependencies(MavenProject, MavenProjectDependenciesConfigurator, org.apache.maven.artifact.repository.ArtifactRepository, java.util.List, java.util.SortedMap, DependencyVisitor)}
+ * as soon as each one has been built.
+ * 
+ * @since 1.7.11
+ */
+public interface DependencyVisitor {
+
+	/**
+	 * @param id
+	 *            the unique artifact id of the dependency
+	 * @param dependency
+	 *            the dependency's project
+	 * @return {@code false} to stop loading any further dependencies.
+	 */
+	boolean visit(String id, MavenProject dependency);
+
+}
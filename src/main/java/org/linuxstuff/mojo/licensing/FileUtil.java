@@ -24,8 +24,19 @@
  */
 package org.linuxstuff.mojo.licensing;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Some basic file io utilities
@@ -49,7 +60,8 @@ public class FileUtil {
 	public static boolean createDirectoryIfNecessary(File dir) throws IOException {
 		if (!dir.exists()) {
 			boolean b = dir.mkdirs();
-			if (!b) {
+			// another thread may have created it in the meantime
+			if (!b && !dir.isDirectory()) {
 				throw new IOException("Could not create directory " + dir);
 			}
 			return true;
@@ -69,4 +81,136 @@ public class FileUtil {
 		return false;
 	}
 
+	/**
+	 * Replace the content of {@code file}, but only if it differs. An
+	 * unchanged file is left alone so its timestamp stays the same. The
+	 * content is written to a temporary file next to it first and moved over
+	 * it, so a reader, or another thread writing the same file, never sees
+	 * it half written.
+	 * 
+	 * @return {@code true} if the file was written
+	 * @throws IOException
+	 *             if the file could not be read or written
+	 */
+	public static boolean writeIfChanged(File file, byte[] content) throws IOException {
+		if (file.isFile() && file.length() == content.length && contentEquals(file, content)) {
+			return false;
+		}
+
+		File temporary = createTemporaryFile(file);
+		try {
+			try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			move(temporary, file);
+		} finally {
+			Files.deleteIfExists(temporary.toPath());
+		}
+		return true;
+	}
+
+	/**
+	 * @return a new, empty file next to {@code file}, to write its content to
+	 *         before {@link #replaceIfChanged(File, File)}.
+	 * @throws IOException
+	 *             if the file could not be created
+	 */
+	public static File createTemporaryFile(File file) throws IOException {
+		createDirectoryIfNecessary(file.getParentFile());
+		return File.createTempFile("." + file.getName() + ".", ".tmp", file.getParentFile());
+	}
+
+	/**
+	 * Move {@code source} over {@code target}, unless {@code target} already
+	 * has the same content. Then {@code source} is deleted and {@code target}
+	 * left alone so its timestamp stays the same.
+	 * 
+	 * @return {@code true} if {@code target} was replaced
+	 * @throws IOException
+	 *             if either file could not be read, or the move failed
+	 */
+	public static boolean replaceIfChanged(File target, File source) throws IOException {
+		if (target.isFile() && target.length() == source.length() && contentEquals(target, source)) {
+			Files.delete(source.toPath());
+			return false;
+		}
+
+		move(source, target);
+		return true;
+	}
+
+	/**
+	 * Move {@code source} over {@code target} atomically where the file system
+	 * can, so {@code target} is either the old or the new file.
+	 */
+	private static void move(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * @return the SHA-256 digest of the file's content as a hex string.
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static String sha256(File file) throws IOException {
+		MessageDigest digest = newSha256();
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	public static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every JRE has to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	private static boolean contentEquals(File a, File b) throws IOException {
+		try (InputStream inA = new BufferedInputStream(new FileInputStream(a)); InputStream inB = new BufferedInputStream(new FileInputStream(b))) {
+			int c;
+			do {
+				c = inA.read();
+				if (c != inB.read()) {
+					return false;
+				}
+			} while (c != -1);
+			return true;
+		}
+	}
+
+	private static boolean contentEquals(File file, byte[] content) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			for (byte b : content) {
+				if (in.read() != (b & 0xff)) {
+					return false;
+				}
+			}
+			return in.read() == -1;
+		}
+	}
+
 }
@@ -0,0 +1,85 @@
+package org.linuxstuff.mojo.licensing;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+/**
+ * Produces licensing reports on a bounded pool and merges them with a
+ * parallel tree reduction: each half of the list is combined on its own and
+ * the two halves are combined last. The left report is always the one
+ * combined into, so the result is the same as combining the reports one after
+ * the other in list order.
+ */
+class ParallelReports {
+
+	private ParallelReports() {
+	}
+
+	/**
+	 * @param reports
+	 *            produce the reports to combine, called at most once each
+	 * @param threads
+	 *            how many reports are produced or combined at the same time
+	 */
+	static LicensingReport combine(List<? extends Callable<LicensingReport>> reports, int threads) throws MojoExecutionException {
+		if (reports.isEmpty()) {
+			return new LicensingReport();
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(threads, reports.size())));
+		try {
+			return pool.invoke(new Reduction(reports, 0, reports.size()));
+		} catch (RuntimeException e) {
+			for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+				if (cause instanceof MojoExecutionException) {
+					throw (MojoExecutionException) cause;
+				}
+			}
+			throw new MojoExecutionException("Could not combine licensing reports.", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static class Reduction extends RecursiveTask<LicensingReport> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends Callable<LicensingReport>> reports;
+		private final int from;
+		private final int to;
+
+		Reduction(List<? extends Callable<LicensingReport>> reports, int from, int to) {
+			this.reports = reports;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected LicensingReport compute() {
+			if (to - from == 1) {
+				try {
+					return reports.get(from).call();
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			int middle = (from + to) >>> 1;
+			Reduction left = new Reduction(reports, from, middle);
+			left.fork();
+			LicensingReport right = new Reduction(reports, middle, to).compute();
+			LicensingReport combined = left.join();
+			combined.combineWith(right);
+			return combined;
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package org.linuxstuff.mojo.licensing;
+
+import java.io.File;
+import java.util.SortedSet;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
+
+/**
+ * Answer questions about an aggregated licensing report from the index
+ * written next to it with {@code licensing.writeIndex}: which modules use an
+ * artifact ({@code -Dlicensing.query.artifact=group:artifact}), what is under
+ * a license ({@code -Dlicensing.query.license=EPL-1.0}) or what a module uses
+ * ({@code -Dlicensing.query.module=group:module:jar:1.0}). Without a question
+ * the licenses and modules in the index are listed.
+ *
+ * @goal query
+ * @requiresProject true
+ * @aggregator
+ * @threadSafe
+ * @since 1.7.11
+ */
+public class QueryMojo extends AbstractLicensingMojo {
+
+	/**
+	 * An artifact id, or a prefix of one such as {@code group:artifact}.
+	 *
+	 * @parameter expression="${licensing.query.artifact}"
+	 * @since 1.7.11
+	 */
+	String artifact;
+
+	/**
+	 * A license name as it appears in the report.
+	 *
+	 * @parameter expression="${licensing.query.license}"
+	 * @since 1.7.11
+	 */
+	String license;
+
+	/**
+	 * A module id as in {@code group:artifact:packaging:version}.
+	 *
+	 * @parameter expression="${licensing.query.module}"
+	 * @since 1.7.11
+	 */
+	String module;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+
+		File indexFile = getIndexFile();
+		if (!indexFile.canRead()) {
+			throw new MojoExecutionException("No licensing index at " + indexFile
+					+ ", build the aggregated report with -Dlicensing.writeIndex=true first.");
+		}
+
+		LicensingIndex index = LicensingIndex.read(indexFile);
+
+		if (artifact != null) {
+			SortedSet<String> ids = index.findArtifacts(artifact);
+			if (ids.isEmpty()) {
+				getLog().info("No artifact " + artifact + " in " + indexFile);
+			}
+			for (String id : ids) {
+				getLog().info(id + " (" + index.getSection(id) + ") " + index.getLicenses(id));
+				list("no modules", index.getModulesUsing(id));
+			}
+		}
+
+		if (license != null) {
+			getLog().info("Under " + license + ":");
+			list("no artifacts", index.getArtifactsUnder(license));
+		}
+
+		if (module != null) {
+			getLog().info("Used by " + module + ":");
+			list("no artifacts", index.getArtifactsOf(module));
+		}
+
+		if (artifact == null && license == null && module == null) {
+			getLog().info("Licenses:");
+			list("no licenses", index.getLicenses());
+			getLog().info("Modules:");
+			list("no modules", index.getModules());
+		}
+	}
+
+	private void list(String none, SortedSet<String> values) {
+		if (values.isEmpty()) {
+			getLog().info("  " + none);
+		}
+		for (String value : values) {
+			getLog().info("  " + value);
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.linuxstuff.mojo.licensing;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+/**
+ * Combines module reports in memory until a budget of artifacts is reached,
+ * then spills the combined report to a sorted NDJSON run file and starts
+ * over. When anything was spilled the aggregated report has to be streamed
+ * out of the runs with a {@code LicensingReportMerger}, otherwise the
+ * in-memory report is the whole aggregate.
+ *
+ * @see AggregateReportMojo
+ */
+class SpillingReportAggregator {
+
+	private static final String RUN_SUFFIX = ReportFormat.NDJSON.getExtension();
+
+	private final File runDirectory;
+
+	private final int budget;
+
+	private final List<File> runs = new ArrayList<File>();
+
+	private LicensingReport report = new LicensingReport();
+
+	/**
+	 * @param budget
+	 *            how many artifacts may be held in memory before they are
+	 *            spilled, {@code 0} or less to never spill
+	 */
+	SpillingReportAggregator(File runDirectory, int budget) {
+		this.runDirectory = runDirectory;
+		this.budget = budget;
+	}
+
+	void add(LicensingReport moduleReport) throws MojoExecutionException {
+		report.combineWith(moduleReport);
+
+		if (budget > 0 && countArtifacts(report) >= budget) {
+			spill();
+		}
+	}
+
+	/**
+	 * Write whatever is held in memory to a new run file.
+	 */
+	void spill() throws MojoExecutionException {
+		if (countArtifacts(report) == 0) {
+			return;
+		}
+		File run = new File(runDirectory, runs.size() + RUN_SUFFIX);
+		report.writeReport(run, ReportFormat.NDJSON);
+		runs.add(run);
+		report = new LicensingReport();
+	}
+
+	boolean hasSpilled() {
+		return !runs.isEmpty();
+	}
+
+	/**
+	 * @return the runs spilled so far, after spilling what is still held in
+	 *         memory.
+	 */
+	List<File> finishRuns() throws MojoExecutionException {
+		spill();
+		return runs;
+	}
+
+	/**
+	 * @return the artifacts not spilled yet.
+	 */
+	LicensingReport getReport() {
+		return report;
+	}
+
+	void deleteRuns() {
+		for (File run : runs) {
+			run.delete();
+		}
+		runDirectory.delete();
+	}
+
+	private static int countArtifacts(LicensingReport report) {
+		return report.getLicensedArtifacts().size() + report.getLicenseMissing().size() + report.getDislikedArtifacts().size();
+	}
+}
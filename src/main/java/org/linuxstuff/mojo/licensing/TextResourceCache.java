@@ -0,0 +1,224 @@
+package org.linuxstuff.mojo.licensing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.resource.ResourceManager;
+import org.codehaus.plexus.resource.loader.FileResourceCreationException;
+import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
+
+/**
+ * Keeps the text of license and prepend/append resources once they have been
+ * located and read. {@code ResourceManager} may copy a resource to a new
+ * temporary file on every lookup, and the same few license texts are needed
+ * by every module of a build.
+ * <p/>
+ * A cache belongs to one build session, so a later build in the same JVM,
+ * say of an IDE or a Maven daemon, locates its resources afresh. Entries are
+ * kept per locator and resource name, as the same name may be a different
+ * resource to another locator. An entry is thrown away if the file it was
+ * read from has changed since.
+ */
+public class TextResourceCache {
+
+	private static final Map<Object, TextResourceCache> SESSIONS = new WeakHashMap<Object, TextResourceCache>();
+
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+	/**
+	 * @param session
+	 *            the build session; its cache is dropped once the session is
+	 *            no longer referenced
+	 * @return the cache of the session, created on first use.
+	 */
+	public static TextResourceCache forSession(Object session) {
+		synchronized (SESSIONS) {
+			TextResourceCache cache = SESSIONS.get(session);
+			if (cache == null) {
+				cache = new TextResourceCache();
+				SESSIONS.put(session, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * @param resourceName
+	 *            anything the {@code locator} can find
+	 * @return the content of the resource, or {@code null} if no resource was
+	 *         asked for.
+	 */
+	public byte[] getText(ResourceManager locator, String resourceName) throws MojoExecutionException {
+		Entry entry = getEntry(locator, resourceName);
+		if (entry == null) {
+			return null;
+		}
+
+		try {
+			return entry.getText();
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read " + entry.file, e);
+		}
+	}
+
+	/**
+	 * @param resourceName
+	 *            anything the {@code locator} can find
+	 * @return the hex SHA-256 of the content of the resource, or {@code null}
+	 *         if no resource was asked for. Resources with the same content
+	 *         have the same digest whatever their names.
+	 */
+	public String getDigest(ResourceManager locator, String resourceName) throws MojoExecutionException {
+		Entry entry = getEntry(locator, resourceName);
+		if (entry == null) {
+			return null;
+		}
+
+		try {
+			return entry.getDigest();
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read " + entry.file, e);
+		}
+	}
+
+	/**
+	 * Turns the content of a resource into something worth keeping with it.
+	 */
+	public interface Compiler<T> {
+
+		T compile(byte[] text, String resourceName) throws MojoExecutionException;
+	}
+
+	/**
+	 * @param resourceName
+	 *            anything the {@code locator} can find
+	 * @return what {@code compiler} made of the content of the resource, or
+	 *         {@code null} if no resource was asked for. It is kept with the
+	 *         entry, so it is only made again once the resource changed.
+	 */
+	public <T> T getCompiled(ResourceManager locator, String resourceName, Class<T> type, Compiler<T> compiler) throws MojoExecutionException {
+		Entry entry = getEntry(locator, resourceName);
+		if (entry == null) {
+			return null;
+		}
+
+		synchronized (entry) {
+			if (!type.isInstance(entry.compiled)) {
+				try {
+					entry.compiled = compiler.compile(entry.getText(), resourceName);
+				} catch (IOException e) {
+					throw new MojoExecutionException("Could not read " + entry.file, e);
+				}
+			}
+			return type.cast(entry.compiled);
+		}
+	}
+
+	/**
+	 * @param resourceName
+	 *            anything the {@code locator} can find
+	 * @return a local file with the content of the resource, or {@code null}
+	 *         if no resource was asked for.
+	 */
+	public File getFile(ResourceManager locator, String resourceName) throws MojoExecutionException {
+		Entry entry = getEntry(locator, resourceName);
+		return entry == null ? null : entry.file;
+	}
+
+	private Entry getEntry(ResourceManager locator, String resourceName) throws MojoExecutionException {
+		if (resourceName == null || "".equals(resourceName)) {
+			return null;
+		}
+
+		Key key = new Key(locator, resourceName);
+		Entry entry = entries.get(key);
+		if (entry == null || entry.isStale()) {
+			entry = new Entry(locate(locator, resourceName));
+			entries.put(key, entry);
+		}
+		return entry;
+	}
+
+	private static File locate(ResourceManager locator, String resourceName) throws MojoExecutionException {
+		try {
+			return locator.getResourceAsFile(resourceName);
+		} catch (ResourceNotFoundException e) {
+			throw new MojoExecutionException("File not found", e);
+		} catch (FileResourceCreationException e) {
+			throw new MojoExecutionException("Could not create file resource.", e);
+		}
+	}
+
+	/**
+	 * A resource name as seen by one locator; locators are told apart by
+	 * identity, they do not implement {@code equals}.
+	 */
+	private static class Key {
+
+		private final ResourceManager locator;
+		private final String resourceName;
+
+		Key(ResourceManager locator, String resourceName) {
+			this.locator = locator;
+			this.resourceName = resourceName;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return locator == other.locator && resourceName.equals(other.resourceName);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(locator) + resourceName.hashCode();
+		}
+	}
+
+	private static class Entry {
+
+		private final File file;
+		private final long lastModified;
+		private final long length;
+		private volatile byte[] text;
+		private volatile String digest;
+		private Object compiled;
+
+		Entry(File file) {
+			this.file = file;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+		}
+
+		/**
+		 * Only read when somebody needs the bytes rather than the file.
+		 */
+		byte[] getText() throws IOException {
+			if (text == null) {
+				text = Files.readAllBytes(file.toPath());
+			}
+			return text;
+		}
+
+		String getDigest() throws IOException {
+			if (digest == null) {
+				byte[] bytes = text;
+				digest = bytes == null ? FileUtil.sha256(file) : FileUtil.toHex(FileUtil.newSha256().digest(bytes));
+			}
+			return digest;
+		}
+
+		boolean isStale() {
+			return file.lastModified() != lastModified || file.length() != length;
+		}
+	}
+}
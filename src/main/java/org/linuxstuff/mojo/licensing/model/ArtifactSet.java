@@ -0,0 +1,107 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The artifacts of one report section. Artifacts are equal by id, and unlike
+ * a {@code HashSet} this set hands out the artifact it holds for an id, so
+ * merging reports can join the licenses of an artifact found in both. It can
+ * also be sized up front for the artifacts about to be added.
+ * 
+ * @see LicensingReport#combineWith(LicensingReport)
+ */
+final class ArtifactSet extends AbstractSet<ArtifactWithLicenses> {
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private Map<ArtifactWithLicenses, ArtifactWithLicenses> artifacts;
+
+	/**
+	 * How many artifacts fit before the map has to grow.
+	 */
+	private int capacity;
+
+	ArtifactSet(int expectedSize) {
+		capacity = Math.max(expectedSize, 12);
+		artifacts = new HashMap<ArtifactWithLicenses, ArtifactWithLicenses>(tableSize(capacity), LOAD_FACTOR);
+	}
+
+	/**
+	 * @return {@code artifacts} if it is an {@code ArtifactSet} already, a new
+	 *         one with the same artifacts otherwise.
+	 */
+	static ArtifactSet of(Collection<ArtifactWithLicenses> artifacts) {
+		if (artifacts instanceof ArtifactSet) {
+			return (ArtifactSet) artifacts;
+		}
+		if (artifacts == null) {
+			return new ArtifactSet(0);
+		}
+		ArtifactSet set = new ArtifactSet(artifacts.size());
+		set.addAll(artifacts);
+		return set;
+	}
+
+	private static int tableSize(int capacity) {
+		return (int) (capacity / LOAD_FACTOR) + 1;
+	}
+
+	/**
+	 * Make room for {@code expectedSize} artifacts in one step rather than
+	 * growing repeatedly while adding them.
+	 */
+	void ensureCapacity(int expectedSize) {
+		if (expectedSize > capacity) {
+			Map<ArtifactWithLicenses, ArtifactWithLicenses> larger = new HashMap<ArtifactWithLicenses, ArtifactWithLicenses>(tableSize(expectedSize), LOAD_FACTOR);
+			larger.putAll(artifacts);
+			artifacts = larger;
+			capacity = expectedSize;
+		}
+	}
+
+	/**
+	 * @return the artifact in this set with the same id, or {@code null}.
+	 */
+	ArtifactWithLicenses get(ArtifactWithLicenses artifact) {
+		return artifacts.get(artifact);
+	}
+
+	/**
+	 * Put {@code artifact} in place of the one with the same id.
+	 */
+	void replace(ArtifactWithLicenses artifact) {
+		// a map keeps its old key when putting an equal one
+		artifacts.remove(artifact);
+		artifacts.put(artifact, artifact);
+	}
+
+	@Override
+	public boolean add(ArtifactWithLicenses artifact) {
+		return artifacts.putIfAbsent(artifact, artifact) == null;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return artifacts.containsKey(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return artifacts.remove(o) != null;
+	}
+
+	@Override
+	public Iterator<ArtifactWithLicenses> iterator() {
+		return artifacts.keySet().iterator();
+	}
+
+	@Override
+	public int size() {
+		return artifacts.size();
+	}
+
+}
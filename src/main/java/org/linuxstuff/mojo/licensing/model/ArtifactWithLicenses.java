@@ -1,6 +1,7 @@
 package org.linuxstuff.mojo.licensing.model;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Set;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
@@ -10,6 +11,19 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 @XStreamAlias("artifact")
 public class ArtifactWithLicenses {
 
+	/**
+	 * Orders artifacts by id, the only thing that identifies them.
+	 */
+	public static final Comparator<ArtifactWithLicenses> BY_ARTIFACT_ID = new Comparator<ArtifactWithLicenses>() {
+		@Override
+		public int compare(ArtifactWithLicenses a, ArtifactWithLicenses b) {
+			if (a.getArtifactId() == null) {
+				return b.getArtifactId() == null ? 0 : -1;
+			}
+			return b.getArtifactId() == null ? 1 : a.getArtifactId().compareTo(b.getArtifactId());
+		}
+	};
+
 	@XStreamAsAttribute
 	@XStreamAlias("id")
 	private String artifactId;
@@ -18,43 +32,61 @@ public class ArtifactWithLicenses {
 	@XStreamAlias("name")
 	private String name;
 
+	/**
+	 * A shared {@link LicenseSet}, replaced rather than changed. Reading with
+	 * XStream fills in a plain set, which {@link #readResolve()} swaps for the
+	 * shared one.
+	 */
 	@XStreamImplicit(itemFieldName = "license")
 	private Set<String> licenses;
 
 	public ArtifactWithLicenses() {
-		licenses = new HashSet<String>();
+		licenses = LicenseSet.EMPTY;
 	}
 
 	public ArtifactWithLicenses(String artifactId) {
 		this.artifactId = artifactId;
-		this.licenses = new HashSet<String>();
+		this.licenses = LicenseSet.EMPTY;
 	}
 
 	public ArtifactWithLicenses(String artifactId, Set<String> licenses) {
 		this.artifactId = artifactId;
-		this.licenses = licenses;
+		setLicenses(licenses);
 	}
 	
 	public ArtifactWithLicenses(String artifactId, String name) {
-        licenses = new HashSet<String>();
+        licenses = LicenseSet.EMPTY;
         this.artifactId = artifactId;
         this.name = name;
 	}
 
 	public void combineWith(ArtifactWithLicenses other) {
-		licenses.addAll(other.getLicenses());
+		addLicenses(other.getLicenses());
 	}
 
 	public String getArtifactId() {
 		return artifactId;
 	}
 
+	/**
+	 * @return the licenses in name order. The set is shared with other
+	 *         artifacts under the same licenses and cannot be changed, use
+	 *         {@link #addLicense(String)} or {@link #setLicenses(Set)}.
+	 */
 	public Set<String> getLicenses() {
 		return licenses;
 	}
 
 	public void addLicense(String license) {
-		licenses.add(license);
+		licenses = shared().with(license);
+	}
+
+	public void addLicenses(Collection<String> licenses) {
+		this.licenses = shared().union(licenses);
+	}
+
+	private LicenseSet shared() {
+		return licenses == null ? LicenseSet.EMPTY : (LicenseSet) licenses;
 	}
 
 	public void setArtifactId(String artifactId) {
@@ -62,7 +94,7 @@ public class ArtifactWithLicenses {
 	}
 
 	public void setLicenses(Set<String> licenses) {
-		this.licenses = licenses;
+		this.licenses = licenses == null ? null : LicenseSet.of(licenses);
 	}
 	
 	public String getName() {
@@ -73,6 +105,14 @@ public class ArtifactWithLicenses {
 		this.name = name;
 	}
 
+	/**
+	 * Called by XStream once the artifact is read.
+	 */
+	private Object readResolve() {
+		setLicenses(licenses);
+		return this;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
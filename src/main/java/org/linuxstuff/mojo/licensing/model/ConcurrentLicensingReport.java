@@ -0,0 +1,63 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * Collects a report from many threads at once without further locking. Each
+ * section is a {@code ConcurrentHashMap}, whose bins are locked separately, so
+ * threads adding different artifacts do not wait for each other. An artifact
+ * added more than once gets the licenses of all additions, and keeps the name
+ * it was first added with, like {@link LicensingReport#combineWith(LicensingReport)}.
+ * <p>
+ * When all threads are done, {@link #freeze()} turns the result into a
+ * regular {@code LicensingReport} for writing.
+ */
+public class ConcurrentLicensingReport implements ReportAccumulator {
+
+	private static final BiFunction<ArtifactWithLicenses, ArtifactWithLicenses, ArtifactWithLicenses> JOIN = new BiFunction<ArtifactWithLicenses, ArtifactWithLicenses, ArtifactWithLicenses>() {
+		@Override
+		public ArtifactWithLicenses apply(ArtifactWithLicenses existing, ArtifactWithLicenses added) {
+			if (added.getLicenses() == null || added.getLicenses().equals(existing.getLicenses())) {
+				return existing;
+			}
+			ArtifactWithLicenses joined = new ArtifactWithLicenses(existing.getArtifactId(), existing.getName());
+			joined.setLicenses(existing.getLicenses());
+			joined.addLicenses(added.getLicenses());
+			return joined;
+		}
+	};
+
+	private final ConcurrentMap<ArtifactWithLicenses, ArtifactWithLicenses> licensedArtifacts = new ConcurrentHashMap<ArtifactWithLicenses, ArtifactWithLicenses>();
+
+	private final ConcurrentMap<ArtifactWithLicenses, ArtifactWithLicenses> licenseMissing = new ConcurrentHashMap<ArtifactWithLicenses, ArtifactWithLicenses>();
+
+	private final ConcurrentMap<ArtifactWithLicenses, ArtifactWithLicenses> dislikedArtifacts = new ConcurrentHashMap<ArtifactWithLicenses, ArtifactWithLicenses>();
+
+	@Override
+	public void addLicensedArtifact(ArtifactWithLicenses artifact) {
+		licensedArtifacts.merge(artifact, artifact, JOIN);
+	}
+
+	@Override
+	public void addMissingLicense(ArtifactWithLicenses artifact) {
+		licenseMissing.merge(artifact, artifact, JOIN);
+	}
+
+	@Override
+	public void addDislikedArtifact(ArtifactWithLicenses artifact) {
+		dislikedArtifacts.merge(artifact, artifact, JOIN);
+	}
+
+	/**
+	 * @return a report with everything added so far. Only call this once no
+	 *         thread is adding anymore.
+	 */
+	public LicensingReport freeze() {
+		LicensingReport report = new LicensingReport();
+		report.addAll(licensedArtifacts.values(), licenseMissing.values(), dislikedArtifacts.values());
+		return report;
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a text report to a file. Generated text goes through a UTF-8
+ * encoder, files are copied into the output channel with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * <p/>
+ * Given a {@link NormalizedTextDigest}, the sink also feeds it everything it
+ * writes, so the report can be compared with another file without reading it
+ * back.
+ */
+class FileChannelTextReportSink extends TextReportSink {
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final FileChannel channel;
+	private final Writer writer;
+	private final NormalizedTextDigest digest;
+
+	FileChannelTextReportSink(File file) throws IOException {
+		this(file, null);
+	}
+
+	/**
+	 * @param digest
+	 *            updated with the bytes of the report as they are written, or
+	 *            {@code null}
+	 */
+	FileChannelTextReportSink(File file, NormalizedTextDigest digest) throws IOException {
+		this.digest = digest;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		OutputStream out = Channels.newOutputStream(channel);
+		if (digest != null) {
+			out = new DigestingOutputStream(out, digest);
+		}
+		writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	@Override
+	void write(String text) throws IOException {
+		writer.write(text);
+	}
+
+	@Override
+	void writeFile(File file) throws IOException {
+		writer.flush();
+
+		try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = source.size();
+			long position = 0;
+			while (position < size) {
+				position += source.transferTo(position, size - position, channel);
+			}
+		}
+		if (digest != null) {
+			digest.update(file);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writer.close();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private static class DigestingOutputStream extends FilterOutputStream {
+
+		private final NormalizedTextDigest digest;
+
+		DigestingOutputStream(OutputStream out, NormalizedTextDigest digest) {
+			super(out);
+			this.digest = digest;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			digest.update(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			digest.update(bytes, offset, length);
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compiled SPDX style license expression such as {@code Apache-2.0 OR MIT}
+ * or {@code GPL-2.0-only WITH Classpath-exception-2.0}. Only the upper case
+ * operators {@code AND}, {@code OR} and {@code WITH} are recognised, so plain
+ * license names like
+ * "GNU General Public License, version 2 with the Classpath Exception" stay a
+ * single license. Anything that does not parse is treated as one license name.
+ * <p>
+ * For {@code license WITH exception} the full name decides when the
+ * requirements like or dislike it, after coalescing; otherwise the verdict
+ * of the bare license is taken. That holds whether the requirements list
+ * liked or only disliked licenses, so a liked
+ * {@code GPL-2.0 WITH Classpath-exception-2.0} is acceptable even with
+ * {@code GPL-2.0} disliked.
+ * <p>
+ * License names are coalesced once, when parsing with the requirements.
+ *
+ * @see LicensingRequirements#getLicenseExpression(String)
+ */
+public abstract class LicenseExpression {
+
+	private static final String AND = "AND";
+	private static final String OR = "OR";
+	private static final String WITH = "WITH";
+
+	/**
+	 * Does this expression grant a license the {@code LicensingRequirements}
+	 * find acceptable?
+	 */
+	public abstract boolean isSatisfiedBy(LicensingRequirements requirements);
+
+	/**
+	 * @return {@code true} unless this is a single license name.
+	 */
+	public boolean isCompound() {
+		return true;
+	}
+
+	/**
+	 * @return the alternatives of a top level {@code OR}, or just this
+	 *         expression.
+	 */
+	public List<LicenseExpression> getAlternatives() {
+		return Collections.singletonList(this);
+	}
+
+	/**
+	 * Render the expression with every license name passed through
+	 * {@link LicensingRequirements#getCorrectLicenseName(String)}.
+	 */
+	public abstract String toCanonicalString(LicensingRequirements requirements);
+
+	public static LicenseExpression parse(String text) {
+		return parse(text, null);
+	}
+
+	/**
+	 * @param requirements
+	 *            coalesce the license names with, or {@code null} to leave
+	 *            that to each evaluation
+	 */
+	static LicenseExpression parse(String text, LicensingRequirements requirements) {
+		List<String> tokens = tokenize(text);
+
+		if (!tokens.contains(AND) && !tokens.contains(OR) && !tokens.contains(WITH)) {
+			return new Simple(text, requirements);
+		}
+
+		Parser parser = new Parser(tokens, requirements);
+		LicenseExpression expression = parser.parseOr();
+		if (expression == null || parser.hasMore()) {
+			return new Simple(text, requirements);
+		}
+		return expression;
+	}
+
+	private static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<String>();
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c) || c == '(' || c == ')') {
+				if (word.length() > 0) {
+					tokens.add(word.toString());
+					word.setLength(0);
+				}
+				if (c == '(' || c == ')') {
+					tokens.add(String.valueOf(c));
+				}
+			} else {
+				word.append(c);
+			}
+		}
+		if (word.length() > 0) {
+			tokens.add(word.toString());
+		}
+		return tokens;
+	}
+
+	/**
+	 * Recursive descent over {@code OR} (loosest), {@code AND}, {@code WITH}
+	 * and parenthesised groups. Returns {@code null} on anything unexpected.
+	 */
+	private static class Parser {
+
+		private final List<String> tokens;
+		private final LicensingRequirements requirements;
+		private int position;
+
+		Parser(List<String> tokens, LicensingRequirements requirements) {
+			this.tokens = tokens;
+			this.requirements = requirements;
+		}
+
+		boolean hasMore() {
+			return position < tokens.size();
+		}
+
+		private String peek() {
+			return hasMore() ? tokens.get(position) : null;
+		}
+
+		LicenseExpression parseOr() {
+			List<LicenseExpression> operands = new ArrayList<LicenseExpression>();
+			operands.add(parseAnd());
+			while (OR.equals(peek())) {
+				position++;
+				operands.add(parseAnd());
+			}
+			if (operands.contains(null)) {
+				return null;
+			}
+			return operands.size() == 1 ? operands.get(0) : new Or(operands);
+		}
+
+		LicenseExpression parseAnd() {
+			List<LicenseExpression> operands = new ArrayList<LicenseExpression>();
+			operands.add(parseWith());
+			while (AND.equals(peek())) {
+				position++;
+				operands.add(parseWith());
+			}
+			if (operands.contains(null)) {
+				return null;
+			}
+			return operands.size() == 1 ? operands.get(0) : new And(operands);
+		}
+
+		LicenseExpression parseWith() {
+			LicenseExpression base = parsePrimary();
+			if (base == null || !WITH.equals(peek())) {
+				return base;
+			}
+			position++;
+			if (!(base instanceof Simple)) {
+				return null;
+			}
+			String exception = parseName();
+			if (exception == null) {
+				return null;
+			}
+			return new With((Simple) base, exception, requirements);
+		}
+
+		LicenseExpression parsePrimary() {
+			if ("(".equals(peek())) {
+				position++;
+				LicenseExpression inner = parseOr();
+				if (inner == null || !")".equals(peek())) {
+					return null;
+				}
+				position++;
+				return inner;
+			}
+			String name = parseName();
+			return name == null ? null : new Simple(name, requirements);
+		}
+
+		/**
+		 * License names may contain spaces, so consume words up to the next
+		 * operator or parenthesis.
+		 */
+		private String parseName() {
+			StringBuilder name = new StringBuilder();
+			while (hasMore()) {
+				String token = peek();
+				if (AND.equals(token) || OR.equals(token) || WITH.equals(token) || "(".equals(token) || ")".equals(token)) {
+					break;
+				}
+				if (name.length() > 0) {
+					name.append(' ');
+				}
+				name.append(token);
+				position++;
+			}
+			return name.length() == 0 ? null : name.toString();
+		}
+	}
+
+	static class Simple extends LicenseExpression {
+
+		private final String name;
+
+		/**
+		 * The coalesced name, or {@code null} if parsed without requirements.
+		 */
+		private final String correct;
+
+		Simple(String name, LicensingRequirements requirements) {
+			this.name = name;
+			this.correct = requirements == null ? null : requirements.getCorrectLicenseName(name);
+		}
+
+		@Override
+		public boolean isSatisfiedBy(LicensingRequirements requirements) {
+			if (correct == null) {
+				return requirements.isAcceptableLicenseName(name);
+			}
+			return requirements.isAcceptableCorrectName(correct);
+		}
+
+		@Override
+		public boolean isCompound() {
+			return false;
+		}
+
+		@Override
+		public String toCanonicalString(LicensingRequirements requirements) {
+			return correct == null ? requirements.getCorrectLicenseName(name) : correct;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * A license with an additional exception, see the class comment for how
+	 * it is judged.
+	 */
+	static class With extends LicenseExpression {
+
+		private final Simple license;
+		private final String exception;
+		private final Simple fullName;
+
+		With(Simple license, String exception, LicensingRequirements requirements) {
+			this.license = license;
+			this.exception = exception;
+			this.fullName = new Simple(toString(), requirements);
+		}
+
+		@Override
+		public boolean isSatisfiedBy(LicensingRequirements requirements) {
+			String correct = fullName.toCanonicalString(requirements);
+			if (requirements.isLikedLicense(correct) || requirements.isDislikedLicense(correct)) {
+				return requirements.isAcceptableCorrectName(correct);
+			}
+			return license.isSatisfiedBy(requirements);
+		}
+
+		@Override
+		public String toCanonicalString(LicensingRequirements requirements) {
+			return license.toCanonicalString(requirements) + " " + WITH + " " + exception;
+		}
+
+		@Override
+		public String toString() {
+			return license + " " + WITH + " " + exception;
+		}
+	}
+
+	static class And extends LicenseExpression {
+
+		private final List<LicenseExpression> operands;
+
+		And(List<LicenseExpression> operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		public boolean isSatisfiedBy(LicensingRequirements requirements) {
+			for (LicenseExpression operand : operands) {
+				if (!operand.isSatisfiedBy(requirements)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toCanonicalString(LicensingRequirements requirements) {
+			return join(operands, AND, requirements);
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, AND, null);
+		}
+	}
+
+	static class Or extends LicenseExpression {
+
+		private final List<LicenseExpression> operands;
+
+		Or(List<LicenseExpression> operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		public boolean isSatisfiedBy(LicensingRequirements requirements) {
+			for (LicenseExpression operand : operands) {
+				if (operand.isSatisfiedBy(requirements)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public List<LicenseExpression> getAlternatives() {
+			return operands;
+		}
+
+		@Override
+		public String toCanonicalString(LicensingRequirements requirements) {
+			return join(operands, OR, requirements);
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, OR, null);
+		}
+	}
+
+	private static String join(List<LicenseExpression> operands, String operator, LicensingRequirements requirements) {
+		StringBuilder joined = new StringBuilder();
+		for (LicenseExpression operand : operands) {
+			if (joined.length() > 0) {
+				joined.append(' ').append(operator).append(' ');
+			}
+			String text = requirements == null ? operand.toString() : operand.toCanonicalString(requirements);
+			if (operand instanceof And || operand instanceof Or) {
+				joined.append('(').append(text).append(')');
+			} else {
+				joined.append(text);
+			}
+		}
+		return joined.toString();
+	}
+}
@@ -0,0 +1,89 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The licensed artifacts of a report grouped by license name, plus the
+ * artifacts under more than one license. This is what the text reports are
+ * rendered from, and it answers which artifacts are under a given license.
+ * A report keeps its grouping up to date as licensed artifacts are added.
+ * Artifacts without a name are listed by their id.
+ * 
+ * @see LicensingReport#groupByLicense()
+ */
+public class LicenseGrouping {
+
+	private final SortedMap<String, SortedSet<String>> artifactsPerLicense = new TreeMap<String, SortedSet<String>>();
+
+	private final SortedMap<String, SortedSet<String>> multiLicensed = new TreeMap<String, SortedSet<String>>();
+
+	LicenseGrouping(Collection<ArtifactWithLicenses> licensedArtifacts) {
+		for (ArtifactWithLicenses awl : licensedArtifacts) {
+			add(awl);
+		}
+	}
+
+	/**
+	 * Add one more licensed artifact to the grouping.
+	 */
+	void add(ArtifactWithLicenses awl) {
+		String artifactName = awl.getName() != null ? awl.getName() : awl.getArtifactId();
+		Set<String> licenses = awl.getLicenses();
+		if (artifactName == null || licenses == null) {
+			return;
+		}
+		for (String license : licenses) {
+			if (license == null) {
+				continue;
+			}
+			SortedSet<String> artifacts = artifactsPerLicense.get(license);
+			if (artifacts == null) {
+				artifacts = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+				artifactsPerLicense.put(license, artifacts);
+			}
+			artifacts.add(artifactName);
+			if (licenses.size() > 1) {
+				SortedSet<String> artifactLicenses = multiLicensed.get(artifactName);
+				if (artifactLicenses == null) {
+					artifactLicenses = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+					multiLicensed.put(artifactName, artifactLicenses);
+				}
+				artifactLicenses.add(license);
+			}
+		}
+	}
+
+	/**
+	 * @return the names of the artifacts under {@code license}, sorted; empty
+	 *         if there are none.
+	 */
+	public SortedSet<String> getArtifactsUnder(String license) {
+		SortedSet<String> artifacts = artifactsPerLicense.get(license);
+		if (artifacts == null) {
+			return Collections.emptySortedSet();
+		}
+		return Collections.unmodifiableSortedSet(artifacts);
+	}
+
+	/**
+	 * @return artifact names per license, both sorted.
+	 */
+	public SortedMap<String, SortedSet<String>> getArtifactsPerLicense() {
+		return Collections.unmodifiableSortedMap(artifactsPerLicense);
+	}
+
+	/**
+	 * @return license names per artifact name, for artifacts under more than
+	 *         one license.
+	 */
+	public SortedMap<String, SortedSet<String>> getMultiLicensed() {
+		return Collections.unmodifiableSortedMap(multiLicensed);
+	}
+
+}
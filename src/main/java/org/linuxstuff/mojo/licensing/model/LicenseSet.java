@@ -0,0 +1,158 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * An immutable, sorted set of license names. Sets are hash-consed: there is
+ * only ever one {@code LicenseSet} with a given content, and the license names
+ * in it are interned, so the thousands of artifacts in a big report share a
+ * handful of sets and strings. Two license sets are equal only if they are the
+ * same object, and their hash code is computed once.
+ * <p>
+ * Every license name also gets a small id, the same for the whole build, and
+ * each set carries the mask of its ids, so a license policy can be applied to
+ * a set with one {@code BitSet} intersection.
+ * <p>
+ * Names, sets and ids are kept in the {@link LicenseTable} of the build
+ * session; it only ever holds the distinct license combinations seen, which
+ * are few.
+ * 
+ * @see ArtifactWithLicenses#getLicenses()
+ */
+final class LicenseSet extends AbstractSet<String> {
+
+	private static final Comparator<String> ORDER = Comparator.nullsFirst(Comparator.<String> naturalOrder());
+
+	static final LicenseSet EMPTY = new LicenseSet(null, new String[0]);
+
+	private final String[] licenses;
+
+	private final int hash;
+
+	private final BitSet ids = new BitSet();
+
+	private final LicenseTable table;
+
+	private LicenseSet(LicenseTable table, String[] licenses) {
+		this.table = table;
+		this.licenses = licenses;
+		int h = 0;
+		for (String license : licenses) {
+			if (license != null) {
+				h += license.hashCode();
+				ids.set(table.idOf(license));
+			}
+		}
+		this.hash = h;
+	}
+
+	/**
+	 * @return the one {@code LicenseSet} with the same licenses as
+	 *         {@code licenses}.
+	 */
+	static LicenseSet of(Collection<String> licenses) {
+		if (licenses.isEmpty()) {
+			return EMPTY;
+		}
+		LicenseTable table = LicenseTable.current();
+		if (licenses instanceof LicenseSet && ((LicenseSet) licenses).table == table) {
+			return (LicenseSet) licenses;
+		}
+
+		String[] sorted = licenses.toArray(new String[licenses.size()]);
+		Arrays.sort(sorted, ORDER);
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (size == 0 || ORDER.compare(sorted[size - 1], sorted[i]) != 0) {
+				sorted[size++] = table.internName(sorted[i]);
+			}
+		}
+		return table.intern(new LicenseSet(table, size == sorted.length ? sorted : Arrays.copyOf(sorted, size)));
+	}
+
+	/**
+	 * @return the set with {@code license} added, which may be this one.
+	 */
+	LicenseSet with(String license) {
+		if (contains(license)) {
+			return this;
+		}
+		String[] added = Arrays.copyOf(licenses, licenses.length + 1);
+		added[licenses.length] = license;
+		return of(Arrays.asList(added));
+	}
+
+	/**
+	 * @return the union of both sets, which may be this one.
+	 */
+	LicenseSet union(Collection<String> others) {
+		if (others == this || containsAll(others)) {
+			return this;
+		}
+		String[] joined = Arrays.copyOf(licenses, licenses.length + others.size());
+		int i = licenses.length;
+		for (String license : others) {
+			joined[i++] = license;
+		}
+		return of(Arrays.asList(joined));
+	}
+
+	/**
+	 * @return the ids of the license names in this set; must not be changed.
+	 */
+	BitSet getIds() {
+		return ids;
+	}
+
+	/**
+	 * @return the table the ids are from, {@code null} for the empty set.
+	 */
+	LicenseTable getTable() {
+		return table;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o != null && !(o instanceof String)) {
+			return false;
+		}
+		return Arrays.binarySearch(licenses, (String) o, ORDER) >= 0;
+	}
+
+	/**
+	 * Iterates in license name order; the iterator does not support removal.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return Arrays.asList(licenses).iterator();
+	}
+
+	@Override
+	public int size() {
+		return licenses.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o instanceof LicenseSet) {
+			// only while interning can two sets have the same content
+			LicenseSet other = (LicenseSet) o;
+			return hash == other.hash && Arrays.equals(licenses, other.licenses);
+		}
+		return super.equals(o);
+	}
+
+}
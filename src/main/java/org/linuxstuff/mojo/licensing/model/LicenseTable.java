@@ -0,0 +1,89 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The interned license names, license sets and license ids behind
+ * {@link LicenseSet}. A table belongs to one build session, so a Maven daemon
+ * or an IDE running build after build in the same JVM does not keep every
+ * license name it has ever seen: once a build is over and the next one has
+ * started, the old table is no longer referenced.
+ * <p/>
+ * Sets and ids of different tables do not mix; a set made by an earlier
+ * table is taken into the current one when it is used again.
+ */
+public final class LicenseTable {
+
+	private static final Map<Object, LicenseTable> SESSIONS = new WeakHashMap<Object, LicenseTable>();
+
+	private static volatile LicenseTable current = new LicenseTable();
+
+	private final ConcurrentMap<String, String> names = new ConcurrentHashMap<String, String>();
+
+	private final ConcurrentMap<LicenseSet, LicenseSet> sets = new ConcurrentHashMap<LicenseSet, LicenseSet>();
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	private final AtomicInteger nextId = new AtomicInteger();
+
+	private LicenseTable() {
+	}
+
+	/**
+	 * Make the table of {@code session} the current one, created on first
+	 * use.
+	 *
+	 * @param session
+	 *            the build session; its table is dropped once the session is
+	 *            no longer referenced and another table is current
+	 */
+	public static void enterSession(Object session) {
+		synchronized (SESSIONS) {
+			LicenseTable table = SESSIONS.get(session);
+			if (table == null) {
+				table = new LicenseTable();
+				SESSIONS.put(session, table);
+			}
+			current = table;
+		}
+	}
+
+	/**
+	 * @return the table new license sets are interned in.
+	 */
+	static LicenseTable current() {
+		return current;
+	}
+
+	/**
+	 * @return the id of the license name, assigned the first time it is seen.
+	 */
+	int idOf(String name) {
+		Integer id = ids.get(name);
+		if (id == null) {
+			Integer assigned = nextId.getAndIncrement();
+			id = ids.putIfAbsent(name, assigned);
+			if (id == null) {
+				id = assigned;
+			}
+		}
+		return id;
+	}
+
+	String internName(String name) {
+		if (name == null) {
+			return null;
+		}
+		String interned = names.putIfAbsent(name, name);
+		return interned != null ? interned : name;
+	}
+
+	LicenseSet intern(LicenseSet candidate) {
+		LicenseSet interned = sets.putIfAbsent(candidate, candidate);
+		return interned != null ? interned : candidate;
+	}
+}
@@ -0,0 +1,20 @@
+package org.linuxstuff.mojo.licensing.model;
+
+/**
+ * The outcome of checking an artifact's licenses against the
+ * {@code LicensingRequirements}.
+ *
+ * @see LicensingRequirements#getVerdict(java.util.Set, boolean)
+ */
+public enum LicenseVerdict {
+
+	/** At least one license is acceptable, or the artifact is exempt. */
+	LIKED,
+
+	/** Every license is disliked (or none are liked). */
+	DISLIKED,
+
+	/** No licensing information was found at all. */
+	MISSING
+
+}
@@ -0,0 +1,322 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.linuxstuff.mojo.licensing.FileUtil;
+
+/**
+ * A compact sidecar to an aggregated licensing report that answers which
+ * modules use an artifact, which artifacts are under a license and what a
+ * module depends on, without parsing the report itself.
+ * <p>
+ * The file is UTF-8 text made of an {@code [artifacts]}, a {@code [licenses]}
+ * and a {@code [modules]} block. Each line is a key followed by its values,
+ * all separated by tabs: an artifact id with its report section and licenses,
+ * a license with the ids of its artifacts, a module with the ids of the
+ * artifacts it uses. Everything is sorted, so the same reports always give
+ * the same file.
+ */
+public class LicensingIndex {
+
+	private static final String ARTIFACTS = "[artifacts]";
+	private static final String LICENSES = "[licenses]";
+	private static final String MODULES = "[modules]";
+
+	private static final List<String> SEVERITY = Arrays.asList(ReportStreamWriter.DISLIKED_SECTION, ReportStreamWriter.LICENSED_SECTION,
+			ReportStreamWriter.MISSING_SECTION);
+
+	private final SortedMap<String, String> sections = new TreeMap<String, String>();
+
+	private final SortedMap<String, SortedSet<String>> licensesPerArtifact = new TreeMap<String, SortedSet<String>>();
+
+	private final SortedMap<String, SortedSet<String>> artifactsPerLicense = new TreeMap<String, SortedSet<String>>();
+
+	private final SortedMap<String, SortedSet<String>> artifactsPerModule = new TreeMap<String, SortedSet<String>>();
+
+	private final SortedMap<String, SortedSet<String>> modulesPerArtifact = new TreeMap<String, SortedSet<String>>();
+
+	/**
+	 * Record the artifacts of a module's report. An artifact already seen in
+	 * another module keeps its section and gets the licenses of both.
+	 */
+	public synchronized void addModule(String module, LicensingReport report) {
+		addArtifacts(module, report);
+		valuesOf(artifactsPerModule, module);
+	}
+
+	/**
+	 * Record the artifacts of a report without saying which modules use them,
+	 * for example of an aggregated report whose artifacts were evaluated once
+	 * for all modules.
+	 * 
+	 * @see #addModule(String, Collection)
+	 */
+	public synchronized void addArtifacts(LicensingReport report) {
+		addArtifacts(null, report);
+	}
+
+	/**
+	 * Record that {@code module} uses the artifacts with the given ids, which
+	 * are expected to be added with {@link #addArtifacts(LicensingReport)}.
+	 */
+	public synchronized void addModule(String module, Collection<String> artifactIds) {
+		SortedSet<String> artifacts = valuesOf(artifactsPerModule, module);
+		for (String id : artifactIds) {
+			artifacts.add(id);
+			valuesOf(modulesPerArtifact, id).add(module);
+		}
+	}
+
+	private void addArtifacts(String module, LicensingReport report) {
+		addArtifacts(module, report.getDislikedArtifacts(), ReportStreamWriter.DISLIKED_SECTION);
+		addArtifacts(module, report.getLicensedArtifacts(), ReportStreamWriter.LICENSED_SECTION);
+		addArtifacts(module, report.getLicenseMissing(), ReportStreamWriter.MISSING_SECTION);
+	}
+
+	private void addArtifacts(String module, Iterable<ArtifactWithLicenses> artifacts, String section) {
+		for (ArtifactWithLicenses artifact : artifacts) {
+			addArtifact(module, artifact, section);
+		}
+	}
+
+	/**
+	 * Record one artifact of a report section. An artifact found in several
+	 * sections is listed in the most severe of them, disliked before
+	 * licensed before missing, whatever order they are added in.
+	 * 
+	 * @param module
+	 *            the module using it, or {@code null}
+	 */
+	synchronized void addArtifact(String module, ArtifactWithLicenses artifact, String section) {
+		String id = artifact.getArtifactId();
+		String known = sections.get(id);
+		if (known == null || SEVERITY.indexOf(section) < SEVERITY.indexOf(known)) {
+			sections.put(id, section);
+		}
+		SortedSet<String> licenses = valuesOf(licensesPerArtifact, id);
+		if (artifact.getLicenses() != null) {
+			for (String license : artifact.getLicenses()) {
+				if (license != null) {
+					licenses.add(license);
+					valuesOf(artifactsPerLicense, license).add(id);
+				}
+			}
+		}
+		if (module != null) {
+			valuesOf(artifactsPerModule, module).add(id);
+			valuesOf(modulesPerArtifact, id).add(module);
+		}
+	}
+
+	/**
+	 * @return the ids of the artifacts that are {@code idOrPrefix} or start
+	 *         with it followed by a colon, so {@code group:artifact} finds
+	 *         every version of it.
+	 */
+	public SortedSet<String> findArtifacts(String idOrPrefix) {
+		SortedSet<String> found = new TreeSet<String>();
+		for (String id : sections.tailMap(idOrPrefix).keySet()) {
+			if (id.equals(idOrPrefix) || id.startsWith(idOrPrefix + ":")) {
+				found.add(id);
+			} else if (!id.startsWith(idOrPrefix)) {
+				break;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the report section of the artifact: {@code artifacts},
+	 *         {@code license-missing} or {@code disliked-artifacts}, or
+	 *         {@code null} if it is not in the index.
+	 */
+	public String getSection(String artifactId) {
+		return sections.get(artifactId);
+	}
+
+	public SortedSet<String> getLicenses(String artifactId) {
+		return unmodifiable(licensesPerArtifact.get(artifactId));
+	}
+
+	public SortedSet<String> getModulesUsing(String artifactId) {
+		return unmodifiable(modulesPerArtifact.get(artifactId));
+	}
+
+	public SortedSet<String> getArtifactsUnder(String license) {
+		return unmodifiable(artifactsPerLicense.get(license));
+	}
+
+	public SortedSet<String> getArtifactsOf(String module) {
+		return unmodifiable(artifactsPerModule.get(module));
+	}
+
+	public SortedSet<String> getLicenses() {
+		return Collections.unmodifiableSortedSet(new TreeSet<String>(artifactsPerLicense.keySet()));
+	}
+
+	public SortedSet<String> getModules() {
+		return Collections.unmodifiableSortedSet(new TreeSet<String>(artifactsPerModule.keySet()));
+	}
+
+	/**
+	 * Write the index, leaving the file alone if it would not change.
+	 */
+	public synchronized void write(File file) throws MojoExecutionException {
+		File temporary = null;
+		try {
+			temporary = FileUtil.createTemporaryFile(file);
+			try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8))) {
+				out.append(ARTIFACTS).append('\n');
+				for (Map.Entry<String, String> section : sections.entrySet()) {
+					List<String> values = new ArrayList<String>();
+					values.add(section.getValue());
+					values.addAll(licensesPerArtifact.get(section.getKey()));
+					appendLine(out, section.getKey(), values);
+				}
+
+				out.append(LICENSES).append('\n');
+				for (Map.Entry<String, SortedSet<String>> license : artifactsPerLicense.entrySet()) {
+					appendLine(out, license.getKey(), license.getValue());
+				}
+
+				out.append(MODULES).append('\n');
+				for (Map.Entry<String, SortedSet<String>> module : artifactsPerModule.entrySet()) {
+					appendLine(out, module.getKey(), module.getValue());
+				}
+			}
+			FileUtil.replaceIfChanged(file, temporary);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not write licensing index " + file, e);
+		} finally {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+	}
+
+	public static LicensingIndex read(File file) throws MojoExecutionException {
+		LicensingIndex index = new LicensingIndex();
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			String block = null;
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("[")) {
+					block = line;
+					continue;
+				}
+
+				List<String> fields = splitLine(line);
+				String key = fields.get(0);
+				List<String> values = fields.subList(1, fields.size());
+
+				if (ARTIFACTS.equals(block)) {
+					index.sections.put(key, values.get(0));
+					valuesOf(index.licensesPerArtifact, key).addAll(values.subList(1, values.size()));
+				} else if (LICENSES.equals(block)) {
+					valuesOf(index.artifactsPerLicense, key).addAll(values);
+				} else if (MODULES.equals(block)) {
+					valuesOf(index.artifactsPerModule, key).addAll(values);
+					for (String id : values) {
+						valuesOf(index.modulesPerArtifact, id).add(key);
+					}
+				} else {
+					throw new MojoExecutionException(file + " is not a licensing index.");
+				}
+			}
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read licensing index " + file, e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new MojoExecutionException(file + " is not a licensing index.", e);
+		}
+
+		return index;
+	}
+
+	private static SortedSet<String> valuesOf(Map<String, SortedSet<String>> map, String key) {
+		SortedSet<String> values = map.get(key);
+		if (values == null) {
+			values = new TreeSet<String>();
+			map.put(key, values);
+		}
+		return values;
+	}
+
+	private static SortedSet<String> unmodifiable(SortedSet<String> values) {
+		if (values == null) {
+			return Collections.unmodifiableSortedSet(new TreeSet<String>());
+		}
+		return Collections.unmodifiableSortedSet(values);
+	}
+
+	private static void appendLine(Writer out, String key, Iterable<String> values) throws IOException {
+		escape(out, key);
+		for (String value : values) {
+			out.append('\t');
+			escape(out, value);
+		}
+		out.append('\n');
+	}
+
+	/**
+	 * Tabs, line breaks and backslashes are escaped the way Java writes them,
+	 * and a leading {@code [} so a key cannot pass for a block header.
+	 */
+	private static void escape(Writer out, String value) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\t') {
+				out.append("\\t");
+			} else if (c == '\n') {
+				out.append("\\n");
+			} else if (c == '\r') {
+				out.append("\\r");
+			} else if (c == '\\') {
+				out.append("\\\\");
+			} else if (c == '[' && i == 0) {
+				out.append("\\[");
+			} else {
+				out.append(c);
+			}
+		}
+	}
+
+	private static List<String> splitLine(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '\t') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\\' && i + 1 < line.length()) {
+				char escaped = line.charAt(++i);
+				field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
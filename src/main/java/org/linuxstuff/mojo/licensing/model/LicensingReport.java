@@ -1,36 +1,48 @@
 package org.linuxstuff.mojo.licensing.model;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.codehaus.plexus.resource.ResourceManager;
-import org.codehaus.plexus.resource.loader.FileResourceCreationException;
-import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
-import org.codehaus.plexus.util.FileUtils;
 import org.linuxstuff.mojo.licensing.FileUtil;
+import org.linuxstuff.mojo.licensing.TextResourceCache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @XStreamAlias("licensing")
-public class LicensingReport {
+public class LicensingReport implements ReportAccumulator {
 
 	private static final String LINE = "------------------------------------------------------------------------------";
 
     public static final String FILE_ENCODING = StandardCharsets.UTF_8.name();
 
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static XStream xstream;
+
     @XStreamAlias("disliked-licenses")
 	@XStreamAsAttribute
 	long dislikedArtifactsCount;
@@ -44,179 +56,394 @@ public class LicensingReport {
 	boolean passing = true;
 
 	@XStreamAlias("artifacts")
-	private Set<ArtifactWithLicenses> licensedArtifacts = new HashSet<ArtifactWithLicenses>();
+	private Set<ArtifactWithLicenses> licensedArtifacts = new ArtifactSet(0);
 
 	@XStreamAlias("license-missing")
-	private Set<ArtifactWithLicenses> licenseMissing = new HashSet<ArtifactWithLicenses>();
+	private Set<ArtifactWithLicenses> licenseMissing = new ArtifactSet(0);
 
 	@XStreamAlias("disliked-artifacts")
-	private Set<ArtifactWithLicenses> dislikedArtifacts = new HashSet<ArtifactWithLicenses>();
+	private Set<ArtifactWithLicenses> dislikedArtifacts = new ArtifactSet(0);
+
+	/**
+	 * Kept up to date with the licensed artifacts from the start, and built
+	 * in {@link #readResolve()} for a report read by XStream.
+	 */
+	private transient LicenseGrouping licenseGrouping = new LicenseGrouping(Collections.<ArtifactWithLicenses> emptySet());
 
 	public LicensingReport() {
 	}
 
-	private void updatePassing() {
-		passing = (licenseMissing.isEmpty() && dislikedArtifacts.isEmpty());
+	private void updateCounts() {
+		missingLicensesCount = licenseMissing().size();
+		dislikedArtifactsCount = dislikedArtifacts().size();
+		passing = (licenseMissing().isEmpty() && dislikedArtifacts().isEmpty());
+	}
+
+	/**
+	 * XStream reads the sections into plain sets, or leaves them out when
+	 * empty; they are swapped for {@code ArtifactSet}s once the report is
+	 * read.
+	 */
+	private Object readResolve() {
+		licensedArtifacts = ArtifactSet.of(licensedArtifacts);
+		licenseMissing = ArtifactSet.of(licenseMissing);
+		dislikedArtifacts = ArtifactSet.of(dislikedArtifacts);
+		licenseGrouping = new LicenseGrouping(licensedArtifacts);
+		return this;
+	}
+
+	private ArtifactSet licensedArtifacts() {
+		return (ArtifactSet) licensedArtifacts;
+	}
+
+	private ArtifactSet licenseMissing() {
+		return (ArtifactSet) licenseMissing;
+	}
+
+	private ArtifactSet dislikedArtifacts() {
+		return (ArtifactSet) dislikedArtifacts;
 	}
 
-	public void addLicensedArtifact(ArtifactWithLicenses artifact) {	    
-		licensedArtifacts.add(artifact);
+	/**
+	 * An artifact added again gets the licenses of both additions and keeps
+	 * its first name, the same as in {@link ConcurrentLicensingReport} and
+	 * {@link #combineWith(LicensingReport)}.
+	 */
+	@Override
+	public void addLicensedArtifact(ArtifactWithLicenses artifact) {
+		merge(licensedArtifacts(), Collections.singleton(artifact), licenseGrouping);
 	}
 
+	/**
+	 * @see #addLicensedArtifact(ArtifactWithLicenses)
+	 */
+	@Override
 	public void addMissingLicense(ArtifactWithLicenses artifact) {
-		licenseMissing.add(artifact);
-		missingLicensesCount = licenseMissing.size();
-		updatePassing();
+		merge(licenseMissing(), Collections.singleton(artifact), null);
+		updateCounts();
 	}
 
+	/**
+	 * @see #addLicensedArtifact(ArtifactWithLicenses)
+	 */
+	@Override
 	public void addDislikedArtifact(ArtifactWithLicenses artifact) {
-		dislikedArtifacts.add(artifact);
-		dislikedArtifactsCount = dislikedArtifacts.size();
-		updatePassing();
+		merge(dislikedArtifacts(), Collections.singleton(artifact), null);
+		updateCounts();
 	}
 
+	/**
+	 * Up to 1.7.10 the section sets themselves were handed out and could be
+	 * changed through them. Since 1.7.11 they are read-only views, so the
+	 * grouping by license and the counts stay in line with the artifacts;
+	 * artifacts are added with {@link #addLicensedArtifact(ArtifactWithLicenses)},
+	 * {@link #addMissingLicense(ArtifactWithLicenses)} and
+	 * {@link #addDislikedArtifact(ArtifactWithLicenses)}, or another report
+	 * with {@link #combineWith(LicensingReport)}.
+	 * 
+	 * @return the licensed artifacts, which cannot be changed here.
+	 * @throws UnsupportedOperationException
+	 *             from the set if it is changed
+	 */
 	public Set<ArtifactWithLicenses> getLicensedArtifacts() {
-		return licensedArtifacts;
+		return Collections.unmodifiableSet(licensedArtifacts);
 	}
 
+	/**
+	 * @return the artifacts without licenses, which cannot be changed here.
+	 * @see #getLicensedArtifacts()
+	 */
 	public Set<ArtifactWithLicenses> getLicenseMissing() {
-		return licenseMissing;
+		return Collections.unmodifiableSet(licenseMissing);
 	}
 
+	/**
+	 * @return the artifacts with disliked licenses, which cannot be changed
+	 *         here.
+	 * @see #getLicensedArtifacts()
+	 */
 	public Set<ArtifactWithLicenses> getDislikedArtifacts() {
-		return dislikedArtifacts;
+		return Collections.unmodifiableSet(dislikedArtifacts);
 	}
 
 	/**
 	 * Merges the passed in {@code LicensingReport} into this one, making this
-	 * one a combination of the two.
+	 * one a combination of the two. An artifact in both reports keeps the
+	 * name it has in this one and gets the licenses of both; it is replaced by
+	 * a merged copy, so neither report's artifacts are changed. The counts are
+	 * updated once at the end.
 	 */
 	public void combineWith(LicensingReport artifactReport) {
-		for (ArtifactWithLicenses artifact : artifactReport.getDislikedArtifacts()) {
-			addDislikedArtifact(artifact);
-		}
+		merge(dislikedArtifacts(), artifactReport.getDislikedArtifacts(), null);
+		merge(licensedArtifacts(), artifactReport.getLicensedArtifacts(), licenseGrouping);
+		merge(licenseMissing(), artifactReport.getLicenseMissing(), null);
+		updateCounts();
+	}
 
-		for (ArtifactWithLicenses artifact : artifactReport.getLicensedArtifacts()) {
-			addLicensedArtifact(artifact);
-		}
+	/**
+	 * Add whole sections at once, counting once at the end.
+	 */
+	void addAll(Collection<ArtifactWithLicenses> licensed, Collection<ArtifactWithLicenses> missing, Collection<ArtifactWithLicenses> disliked) {
+		merge(licensedArtifacts(), licensed, licenseGrouping);
+		merge(licenseMissing(), missing, null);
+		merge(dislikedArtifacts(), disliked, null);
+		updateCounts();
+	}
 
-		for (ArtifactWithLicenses artifact : artifactReport.getLicenseMissing()) {
-			addMissingLicense(artifact);
+	private static void merge(ArtifactSet target, Collection<ArtifactWithLicenses> artifacts, LicenseGrouping grouping) {
+		target.ensureCapacity(target.size() + artifacts.size());
+
+		for (ArtifactWithLicenses artifact : artifacts) {
+			ArtifactWithLicenses existing = target.get(artifact);
+			ArtifactWithLicenses merged = artifact;
+			if (existing == null) {
+				target.add(artifact);
+			} else {
+				if (artifact.getLicenses() == null || existing == artifact) {
+					continue;
+				}
+				merged = new ArtifactWithLicenses(existing.getArtifactId(), existing.getName());
+				merged.setLicenses(existing.getLicenses());
+				merged.addLicenses(artifact.getLicenses());
+				if (merged.getLicenses() == existing.getLicenses()) {
+					// license sets are shared, so nothing new was added
+					continue;
+				}
+				target.replace(merged);
+			}
+			if (grouping != null) {
+				grouping.add(merged);
+			}
 		}
-
 	}
 
+	/**
+	 * Write the report as XML. The document is streamed out rather than
+	 * serialized through XStream, but has exactly the same layout. Artifacts
+	 * and licenses are sorted so the same report always gives the same file,
+	 * and an unchanged file is not touched.
+	 */
 	public void writeReport(File file) throws MojoExecutionException {
+		writeReport(file, ReportFormat.XML);
+	}
 
-		XStream xstream = new XStream(new StaxDriver());
+	/**
+	 * Write the report in the given format, see {@link #writeReport(File)}.
+	 */
+	public void writeReport(File file, ReportFormat format) throws MojoExecutionException {
+		writeReport(file, format, false);
+	}
 
-		xstream.processAnnotations(LicensingReport.class);
-		xstream.processAnnotations(ArtifactWithLicenses.class);
+	/**
+	 * Write the report in the given format, see {@link #writeReport(File)}.
+	 * 
+	 * @param compressed
+	 *            gzip the report; {@link #readReport(File)} recognises this
+	 *            by itself
+	 */
+	public void writeReport(File file, ReportFormat format, boolean compressed) throws MojoExecutionException {
 
-		FileOutputStream fos = null;
+		File temporary = null;
 		try {
-			FileUtil.createNewFile(file);
+			temporary = FileUtil.createTemporaryFile(file);
+			try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(temporary), BUFFER_SIZE)) {
+				OutputStream out = compressed ? new GZIPOutputStream(stream, BUFFER_SIZE) : stream;
+				newStreamWriter(out, format).write(this);
+				out.close();
+			}
+
+			FileUtil.replaceIfChanged(file, temporary);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Failure while creating new file " + file, e);
+		} finally {
+			if (temporary != null) {
+				temporary.delete();
+			}
+		}
+	}
 
-			fos = new FileOutputStream(file);
+	static ReportStreamWriter newStreamWriter(OutputStream out, ReportFormat format) throws IOException {
+		if (format == ReportFormat.NDJSON) {
+			return new LicensingReportJsonWriter(out);
+		}
+		return new LicensingReportXmlWriter(out);
+	}
 
-			xstream.toXML(this, fos);
+	/**
+	 * Read a report written by {@link #writeReport(File, ReportFormat, boolean)}
+	 * in either format, compressed or not; which one is decided by the first
+	 * bytes.
+	 */
+	public static LicensingReport readReport(File file) throws MojoExecutionException {
+		try (InputStream in = openReport(file)) {
+			if (startsWithJson(in)) {
+				return new LicensingReportJsonReader(in).read();
+			}
+			return (LicensingReport) getXStream().fromXML(in);
 		} catch (IOException e) {
-			throw new MojoExecutionException("Failure while creating new file " + file, e);
-        } finally {
-            if (fos != null) {
-                try
-                {
-                    fos.close();
-                }
-                catch ( IOException e )
-                {
-                    throw new MojoExecutionException("Error while closing file " + file, e);
-                }            
-            }
-        }
+			throw new MojoExecutionException("Could not read report " + file, e);
+		} catch (XStreamException e) {
+			throw new MojoExecutionException("Could not read report " + file, e);
+		}
 	}
 
+	/**
+	 * @return a buffered stream over the report, decompressed if it is gzipped
+	 */
+	static InputStream openReport(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			in.mark(2);
+			boolean gzipped = in.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) && in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+			in.reset();
+			if (gzipped) {
+				in = new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+			}
+			return in;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	static boolean startsWithJson(InputStream in) throws IOException {
+		in.mark(BUFFER_SIZE);
+		try {
+			int c;
+			do {
+				c = in.read();
+			} while (c != -1 && Character.isWhitespace(c));
+			return c == '{';
+		} finally {
+			in.reset();
+		}
+	}
+
+	/**
+	 * XStream is safe to share between threads once it has been configured.
+	 */
+	private static synchronized XStream getXStream() {
+		if (xstream == null) {
+			XStream configured = new XStream(new StaxDriver());
+			configured.processAnnotations(LicensingReport.class);
+			configured.processAnnotations(ArtifactWithLicenses.class);
+			xstream = configured;
+		}
+		return xstream;
+	}
+
+	/**
+	 * @return the artifacts in artifact id order, the order they are written
+	 *         in.
+	 */
+	static List<ArtifactWithLicenses> sortedById(Collection<ArtifactWithLicenses> artifacts) {
+		List<ArtifactWithLicenses> sorted = new ArrayList<ArtifactWithLicenses>(artifacts);
+		Collections.sort(sorted, ArtifactWithLicenses.BY_ARTIFACT_ID);
+		return sorted;
+	}
+
+    /**
+     * Write the report as plain text. The prepend/append and license
+     * resources are located through a {@code TextResourceCache} for this call
+     * and copied into the report file as they are; only the generated listing
+     * goes through the character encoder. With {@code includeFullLicense}
+     * each distinct license text is copied once, a later license with the
+     * same text refers back to the first.
+     */
     public void writeTextReport( File file, ResourceManager locator,
             String prependText, String appendText, boolean includeDualList,
             boolean includeFullLicense ) throws MojoExecutionException
     {
-	    PrintWriter writer = null;
+        writeTextReport( file, locator, new TextResourceCache(), groupByLicense(), null, prependText, appendText, includeDualList, includeFullLicense );
+    }
+
+    /**
+     * Like {@link #writeTextReport(File, ResourceManager, String, String, boolean, boolean)}
+     * but rendered from a grouping built earlier, so several text reports can
+     * share it, and with texts taken from a cache that outlives the call.
+     * 
+     * @param template
+     *            the layout between the prepended and appended text, or
+     *            {@code null} for the built-in one
+     */
+    public void writeTextReport( File file, ResourceManager locator, TextResourceCache texts, LicenseGrouping grouping,
+            TextTemplate template, String prependText, String appendText, boolean includeDualList,
+            boolean includeFullLicense ) throws MojoExecutionException
+    {
+        writeTextReport( file, null, locator, texts, grouping, template, prependText, appendText, includeDualList, includeFullLicense );
+	}
+
+    /**
+     * Write a text report like
+     * {@link #writeTextReport(File, ResourceManager, TextResourceCache, LicenseGrouping, TextTemplate, String, String, boolean, boolean)}
+     * and compute its {@link NormalizedTextDigest} on the way, so it can be
+     * compared with an existing file without reading it back.
+     * 
+     * @return the normalized digest of what was written
+     */
+    public byte[] writeDigestedTextReport( File file, ResourceManager locator, TextResourceCache texts, LicenseGrouping grouping,
+            TextTemplate template, String prependText, String appendText, boolean includeDualList,
+            boolean includeFullLicense ) throws MojoExecutionException
+    {
+        NormalizedTextDigest digest = new NormalizedTextDigest();
+        writeTextReport( file, digest, locator, texts, grouping, template, prependText, appendText, includeDualList, includeFullLicense );
+        return digest.digest();
+    }
+
+    private void writeTextReport( File file, NormalizedTextDigest digest, ResourceManager locator, TextResourceCache texts,
+            LicenseGrouping grouping, TextTemplate template, String prependText, String appendText, boolean includeDualList,
+            boolean includeFullLicense ) throws MojoExecutionException
+    {
         try {
-            File prefixResource = getTextResourceFile(locator, prependText);
-            File postfixResource = getTextResourceFile(locator, appendText);
+            File prefix = texts.getFile(locator, prependText);
+            File postfix = texts.getFile(locator, appendText);
             FileUtil.createNewFile(file);
-            
-            writer = new PrintWriter( file, FILE_ENCODING );
-            
-            writeToFile( prefixResource, writer );
-            generateTextReport(writer, locator, includeDualList, includeFullLicense);
-            writeToFile( postfixResource, writer );
+
+            try (TextReportSink sink = new FileChannelTextReportSink( file, digest )) {
+                writeText( prefix, sink );
+                generateTextReport(sink, locator, texts, grouping, template, includeDualList, includeFullLicense);
+                writeText( postfix, sink );
+            }
         } catch (IOException e) {
             throw new MojoExecutionException("Failure while creating new file " + file, e);
-        } finally {
-            if (writer != null) {
-                writer.close();            
-            }
         }
-	}
+    }
 
-    private File getTextResourceFile( ResourceManager locator, String fileName ) throws MojoExecutionException
+    /**
+     * Group the licensed artifacts by license for the text reports. The
+     * grouping is kept up to date as licensed artifacts are added, so asking
+     * for it is free.
+     */
+    public LicenseGrouping groupByLicense()
     {
-        if (fileName == null || "".equals(fileName)) {
-            return null;
-        }
-        File textResource;
-        try
-        {
-            textResource = locator.getResourceAsFile( fileName );
-        }
-        catch ( ResourceNotFoundException e )
-        {
-            throw new MojoExecutionException("File not found" , e );
-        }
-        catch ( FileResourceCreationException e )
-        {
-            throw new MojoExecutionException("Could not create file resource." , e );
-        }
-        return textResource;
+        return licenseGrouping;
     }
 
-    private void writeToFile( File fromFile, PrintWriter writer )
-            throws IOException
+    private void writeText( File text, TextReportSink sink ) throws IOException
     {
-        if (fromFile  != null)
+        if (text != null)
         {
-			writer.println( FileUtils.fileRead( fromFile, FILE_ENCODING ) );
-            writer.println();
+			sink.writeFile( text );
+            sink.println();
+            sink.println();
         }
     }
 
-    private void generateTextReport( PrintWriter writer,
-            ResourceManager locator, boolean includeDualList, boolean includeFullLicense )
+    private void generateTextReport( TextReportSink writer,
+            ResourceManager locator, TextResourceCache texts, LicenseGrouping grouping, TextTemplate template,
+            boolean includeDualList, boolean includeFullLicense )
             throws IOException, MojoExecutionException
     {
-        SortedMap<String,SortedSet<String>> artifactsPerLicense = new TreeMap<String,SortedSet<String>>();
-        SortedMap<String,SortedSet<String>> multiLicensed = new TreeMap<String,SortedSet<String>>();
-	    for (ArtifactWithLicenses awl : getLicensedArtifacts()) {
-	        String artifactName = awl.getName();
-	        Set<String> licenses = awl.getLicenses();
-	        for (String license : licenses) {
-	            SortedSet<String> artifacts = artifactsPerLicense.get( license );
-	            if (artifacts == null) {
-	                artifacts = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
-	                artifactsPerLicense.put( license, artifacts );
-	            }
-	            artifacts.add( artifactName );
-	            if (licenses.size() > 1) {
-	                SortedSet<String> artifactLicenses = multiLicensed.get( artifactName );
-	                if (artifactLicenses==null) {
-	                    artifactLicenses = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
-	                    multiLicensed.put( artifactName, artifactLicenses );
-	                }
-	                artifactLicenses.add( license );	                
-	            }
-	        }
+        if ( template != null )
+        {
+            template.render( writer, grouping, locator, texts );
+            return;
         }
+
+        SortedMap<String,SortedSet<String>> artifactsPerLicense = grouping.getArtifactsPerLicense();
+        SortedMap<String,SortedSet<String>> multiLicensed = grouping.getMultiLicensed();
+        // license names whose resources have identical text share one copy
+        Map<String,String> licenseWithText = new HashMap<String,String>();
 	    if (!includeFullLicense)
 	    {
 	        writer.println( "Third-party licenses" );
@@ -238,7 +465,21 @@ public class LicensingReport {
 	        if (includeFullLicense)
 	        {
 	            writer.println( LINE + "\n" );
-	            writeToFile(getTextResourceFile( locator, entry.getKey() ), writer);
+	            String digest = texts.getDigest( locator, entry.getKey() );
+	            String sameText = digest == null ? null : licenseWithText.get( digest );
+	            if ( sameText != null )
+	            {
+	                writer.println( "Same text as " + sameText + " above." );
+	                writer.println();
+	            }
+	            else
+	            {
+	                if ( digest != null )
+	                {
+	                    licenseWithText.put( digest, entry.getKey() );
+	                }
+	                writeText(texts.getFile( locator, entry.getKey() ), writer);
+	            }
 	            writer.println();
 	        }
 	    }
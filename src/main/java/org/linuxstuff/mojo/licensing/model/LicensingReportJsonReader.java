@@ -0,0 +1,105 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads a report written by {@code LicensingReportJsonWriter} one artifact at
+ * a time. The counts in the header line are not trusted, they follow from the
+ * artifacts.
+ */
+class LicensingReportJsonReader implements Closeable {
+
+	private final JsonParser parser;
+
+	private String section;
+
+	LicensingReportJsonReader(InputStream in) throws IOException {
+		parser = LicensingReportJsonWriter.JSON_FACTORY.createParser(in);
+	}
+
+	LicensingReport read() throws IOException {
+		LicensingReport report = new LicensingReport();
+
+		ArtifactWithLicenses artifact;
+		while ((artifact = next()) != null) {
+			if (ReportStreamWriter.LICENSED_SECTION.equals(section)) {
+				report.addLicensedArtifact(artifact);
+			} else if (ReportStreamWriter.MISSING_SECTION.equals(section)) {
+				report.addMissingLicense(artifact);
+			} else if (ReportStreamWriter.DISLIKED_SECTION.equals(section)) {
+				report.addDislikedArtifact(artifact);
+			} else {
+				throw new JsonParseException(parser, "Unknown report section " + section);
+			}
+		}
+
+		return report;
+	}
+
+	/**
+	 * @return the next artifact, its section is then available from
+	 *         {@link #getSection()}; {@code null} at the end of the report.
+	 */
+	ArtifactWithLicenses next() throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) != null) {
+			if (token != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "Expected an object per line, found " + token);
+			}
+			ArtifactWithLicenses artifact = readLine();
+			if (section != null) {
+				return artifact;
+			}
+			// the header line
+		}
+
+		section = null;
+		return null;
+	}
+
+	String getSection() {
+		return section;
+	}
+
+	private ArtifactWithLicenses readLine() throws IOException {
+		section = null;
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+
+			if (LicensingReportJsonWriter.SECTION.equals(field)) {
+				section = parser.getText();
+			} else if (LicensingReportJsonWriter.ID.equals(field)) {
+				artifact.setArtifactId(parser.getText());
+			} else if (LicensingReportJsonWriter.NAME.equals(field)) {
+				artifact.setName(parser.getText());
+			} else if (LicensingReportJsonWriter.LICENSES.equals(field) && value == JsonToken.START_ARRAY) {
+				List<String> licenses = new ArrayList<String>();
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					licenses.add(parser.getText());
+				}
+				artifact.addLicenses(licenses);
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		return artifact;
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes a {@code LicensingReport} as newline delimited JSON. The first line
+ * carries the counts and overall result, every further line is one artifact
+ * with the name of the report section it belongs to:
+ * 
+ * <pre>
+ * {"licensing-check":false,"disliked-licenses":1,"missing-licenses":0}
+ * {"section":"artifacts","id":"g:a:jar:1.0","name":"A","licenses":["MIT"]}
+ * {"section":"disliked-artifacts","id":"g:b:jar:1.0","licenses":["GPL"]}
+ * </pre>
+ * 
+ * Artifacts are written in the same order as in the XML report.
+ * 
+ * @see LicensingReportJsonReader
+ */
+class LicensingReportJsonWriter extends ReportStreamWriter {
+
+	static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	static final String CHECK = "licensing-check";
+	static final String DISLIKED_COUNT = "disliked-licenses";
+	static final String MISSING_COUNT = "missing-licenses";
+	static final String SECTION = "section";
+	static final String ID = "id";
+	static final String NAME = "name";
+	static final String LICENSES = "licenses";
+
+	private final JsonGenerator generator;
+
+	private String section;
+
+	LicensingReportJsonWriter(OutputStream out) throws IOException {
+		generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+		generator.setRootValueSeparator(null);
+	}
+
+	@Override
+	void startReport(long dislikedCount, long missingCount, boolean passing) throws IOException {
+		generator.writeStartObject();
+		generator.writeBooleanField(CHECK, passing);
+		generator.writeNumberField(DISLIKED_COUNT, dislikedCount);
+		generator.writeNumberField(MISSING_COUNT, missingCount);
+		generator.writeEndObject();
+		generator.writeRaw('\n');
+	}
+
+	@Override
+	void startSection(String section) {
+		this.section = section;
+	}
+
+	@Override
+	void writeArtifact(ArtifactWithLicenses artifact) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField(SECTION, section);
+		if (artifact.getArtifactId() != null) {
+			generator.writeStringField(ID, artifact.getArtifactId());
+		}
+		if (artifact.getName() != null) {
+			generator.writeStringField(NAME, artifact.getName());
+		}
+		generator.writeArrayFieldStart(LICENSES);
+		if (artifact.getLicenses() != null) {
+			for (String license : artifact.getLicenses()) {
+				generator.writeString(license);
+			}
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeRaw('\n');
+	}
+
+	@Override
+	void endSection() {
+		section = null;
+	}
+
+	@Override
+	void endReport() throws IOException {
+		generator.flush();
+	}
+
+}
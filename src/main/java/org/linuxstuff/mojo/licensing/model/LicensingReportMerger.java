@@ -0,0 +1,215 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.linuxstuff.mojo.licensing.FileUtil;
+
+/**
+ * Merges report files sorted by artifact id into one report without loading
+ * them: every section is a k-way merge over one cursor per file, so memory
+ * use depends on the number of files rather than the number of artifacts.
+ * Artifacts with the same id are written once, under the name found first
+ * and with the licenses of all of them.
+ * <p>
+ * The counts come before the artifacts in a report, so the missing and
+ * disliked sections are merged first into an NDJSON spill file next to the
+ * report, counting them on the way. The report is then written from a merge
+ * of the licensed sections followed by the spilled sections, so every
+ * section of the input files is read once.
+ */
+public class LicensingReportMerger {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final String MERGING_SUFFIX = ".merging";
+
+	private static final String SPILL_SUFFIX = ".spill";
+
+	private final List<File> reports;
+
+	private LicensingIndex index;
+
+	private List<String> modules;
+
+	/**
+	 * @param reports
+	 *            the files to merge; for artifacts with the same id the name
+	 *            in the earliest file is kept
+	 */
+	public LicensingReportMerger(List<File> reports) {
+		this.reports = reports;
+	}
+
+	/**
+	 * Also record the artifacts of every report in {@code index} while
+	 * merging, as {@link LicensingIndex#addModule(String, LicensingReport)}
+	 * would, without reading the reports again.
+	 * 
+	 * @param modules
+	 *            the module each report belongs to, in the order of the
+	 *            reports
+	 */
+	public void indexInto(LicensingIndex index, List<String> modules) {
+		this.index = index;
+		this.modules = modules;
+	}
+
+	/**
+	 * Write the merged report, see
+	 * {@link LicensingReport#writeReport(File, ReportFormat, boolean)}. An
+	 * unchanged file is not touched.
+	 */
+	public void writeReport(File file, ReportFormat format, boolean compressed) throws MojoExecutionException {
+		File merging = new File(file.getPath() + MERGING_SUFFIX);
+		File spill = new File(file.getPath() + SPILL_SUFFIX);
+		if (index != null) {
+			for (String module : modules) {
+				index.addModule(module, Collections.<String> emptySet());
+			}
+		}
+		try {
+			long missingCount;
+			long dislikedCount;
+			FileUtil.createNewFile(spill);
+			OutputStream spillOut = new BufferedOutputStream(new FileOutputStream(spill), BUFFER_SIZE);
+			try {
+				ReportStreamWriter spillWriter = LicensingReport.newStreamWriter(spillOut, ReportFormat.NDJSON);
+				// the counts of the spill file are never read
+				spillWriter.startReport(0, 0, true);
+				spillWriter.startSection(ReportStreamWriter.MISSING_SECTION);
+				missingCount = mergeSection(reports, ReportStreamWriter.MISSING_SECTION, spillWriter, index);
+				spillWriter.endSection();
+				spillWriter.startSection(ReportStreamWriter.DISLIKED_SECTION);
+				dislikedCount = mergeSection(reports, ReportStreamWriter.DISLIKED_SECTION, spillWriter, index);
+				spillWriter.endSection();
+				spillWriter.endReport();
+			} finally {
+				spillOut.close();
+			}
+
+			List<File> spilled = Collections.singletonList(spill);
+			FileUtil.createNewFile(merging);
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(merging), BUFFER_SIZE);
+			try {
+				if (compressed) {
+					out = new GZIPOutputStream(out, BUFFER_SIZE);
+				}
+				ReportStreamWriter writer = LicensingReport.newStreamWriter(out, format);
+				writer.startReport(dislikedCount, missingCount, missingCount == 0 && dislikedCount == 0);
+				for (String section : ReportStreamWriter.SECTIONS) {
+					writer.startSection(section);
+					if (ReportStreamWriter.LICENSED_SECTION.equals(section)) {
+						mergeSection(reports, section, writer, index);
+					} else {
+						mergeSection(spilled, section, writer, null);
+					}
+					writer.endSection();
+				}
+				writer.endReport();
+			} finally {
+				out.close();
+			}
+
+			FileUtil.replaceIfChanged(file, merging);
+		} catch (IOException e) {
+			merging.delete();
+			throw new MojoExecutionException("Failure while merging reports into " + file, e);
+		} finally {
+			spill.delete();
+		}
+	}
+
+	/**
+	 * Merge one section of the given reports.
+	 * 
+	 * @param writer
+	 *            receives the merged artifacts in its current section
+	 * @param index
+	 *            records the artifacts of each of the {@link #modules}, or
+	 *            {@code null}
+	 * @return the number of distinct artifacts in the section
+	 */
+	private long mergeSection(List<File> files, String section, ReportStreamWriter writer, LicensingIndex index) throws IOException {
+		PriorityQueue<Head> heads = new PriorityQueue<Head>(Math.max(1, files.size()), Head.ORDER);
+		List<ReportCursor> cursors = new ArrayList<ReportCursor>(files.size());
+		try {
+			for (File report : files) {
+				ReportCursor cursor = ReportCursor.open(report, section);
+				cursors.add(cursor);
+				advance(new Head(cursor, cursors.size() - 1), heads);
+			}
+
+			long count = 0;
+			while (!heads.isEmpty()) {
+				Head head = heads.poll();
+				ArtifactWithLicenses merged = head.artifact;
+				if (index != null) {
+					index.addArtifact(modules.get(head.position), merged, section);
+				}
+				advance(head, heads);
+
+				while (!heads.isEmpty() && ArtifactWithLicenses.BY_ARTIFACT_ID.compare(heads.peek().artifact, merged) == 0) {
+					Head same = heads.poll();
+					if (index != null) {
+						index.addArtifact(modules.get(same.position), same.artifact, section);
+					}
+					merged.combineWith(same.artifact);
+					advance(same, heads);
+				}
+
+				count++;
+				writer.writeArtifact(merged);
+			}
+			return count;
+		} finally {
+			for (ReportCursor cursor : cursors) {
+				cursor.close();
+			}
+		}
+	}
+
+	private static void advance(Head head, PriorityQueue<Head> heads) throws IOException {
+		head.artifact = head.cursor.next();
+		if (head.artifact != null) {
+			heads.add(head);
+		}
+	}
+
+	/**
+	 * The current artifact of one report.
+	 */
+	private static class Head {
+
+		/**
+		 * By artifact id, then by the position of the report.
+		 */
+		static final Comparator<Head> ORDER = new Comparator<Head>() {
+			@Override
+			public int compare(Head a, Head b) {
+				int byId = ArtifactWithLicenses.BY_ARTIFACT_ID.compare(a.artifact, b.artifact);
+				return byId != 0 ? byId : Integer.compare(a.position, b.position);
+			}
+		};
+
+		final ReportCursor cursor;
+		final int position;
+		ArtifactWithLicenses artifact;
+
+		Head(ReportCursor cursor, int position) {
+			this.cursor = cursor;
+			this.position = position;
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+/**
+ * Writes a {@code LicensingReport} straight to a stream, producing the same
+ * document XStream would produce from the annotated model but without the
+ * reflection and intermediate objects. The StAX implementation is the one
+ * XStream's {@code StaxDriver} picks, so XStream reads it back as before.
+ * Artifacts are written in artifact id order and licenses in name order, the
+ * order of an artifact's {@code LicenseSet}, so the output does not depend on
+ * {@code HashSet} iteration order.
+ * 
+ * @see LicensingReport#writeReport(java.io.File)
+ */
+class LicensingReportXmlWriter extends ReportStreamWriter {
+
+	private static final XMLOutputFactory OUTPUT_FACTORY = new StaxDriver().getOutputFactory();
+
+	private final XMLStreamWriter writer;
+
+	LicensingReportXmlWriter(OutputStream out) throws IOException {
+		try {
+			this.writer = OUTPUT_FACTORY.createXMLStreamWriter(out, LicensingReport.FILE_ENCODING);
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	void startReport(long dislikedCount, long missingCount, boolean passing) throws IOException {
+		try {
+			writer.writeStartDocument(LicensingReport.FILE_ENCODING, "1.0");
+
+			writer.writeStartElement("licensing");
+			writer.writeAttribute("disliked-licenses", String.valueOf(dislikedCount));
+			writer.writeAttribute("missing-licenses", String.valueOf(missingCount));
+			writer.writeAttribute("licensing-check", String.valueOf(passing));
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	void startSection(String section) throws IOException {
+		try {
+			writer.writeStartElement(section);
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	void writeArtifact(ArtifactWithLicenses artifact) throws IOException {
+		try {
+			writer.writeStartElement("artifact");
+			if (artifact.getArtifactId() != null) {
+				writer.writeAttribute("id", artifact.getArtifactId());
+			}
+			if (artifact.getName() != null) {
+				writer.writeAttribute("name", artifact.getName());
+			}
+			if (artifact.getLicenses() != null) {
+				for (String license : artifact.getLicenses()) {
+					writer.writeStartElement("license");
+					writer.writeCharacters(license);
+					writer.writeEndElement();
+				}
+			}
+			writer.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	void endSection() throws IOException {
+		try {
+			writer.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	void endReport() throws IOException {
+		try {
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -3,8 +3,13 @@ package org.linuxstuff.mojo.licensing.model;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @XStreamAlias("licensing-requirements")
 public class LicensingRequirements {
@@ -36,6 +41,20 @@ public class LicensingRequirements {
 	@XStreamImplicit(itemFieldName = "dislike-exemption")
 	private Set<String> dislikeExemptions = new HashSet<String>();
 
+	/**
+	 * Parsed license expressions, keyed by their text. Their license names
+	 * are coalesced when parsed, so they are parsed again after the coalesced
+	 * licenses change.
+	 */
+	private transient Map<String, LicenseExpression> licenseExpressions;
+
+	/**
+	 * Which license ids the policy finds acceptable. Rebuilt after the policy
+	 * changes, and extended with copies as new license names turn up, so
+	 * readers never see it change.
+	 */
+	private transient volatile Policy policy;
+
 	public void addArtifactMissingLicense(ArtifactWithLicenses missingLicense) {
 		missingLicenses.add(missingLicense);
 	}
@@ -50,6 +69,7 @@ public class LicensingRequirements {
 
 	public void addCoalescedLicense(CoalescedLicense coalescedLicense) {
 		coalescedLicenses.add(coalescedLicense);
+		policyChanged();
 	}
 	
 	public void addDualLicense(DualLicense dualLicense) {
@@ -58,10 +78,12 @@ public class LicensingRequirements {
 
 	public void addDislikedLicense(String licenseName) {
 		dislikedLicenses.add(licenseName);
+		policyChanged();
 	}
 
 	public void addLikedLicense(String licenseName) {
 		likedLicenses.add(licenseName);
+		policyChanged();
 	}
 
 	public void addDislikeExemption(String artifactId) {
@@ -75,6 +97,177 @@ public class LicensingRequirements {
 	public boolean isLikedLicense(String license) {
 		return likedLicenses.contains(license);
 	}
+
+	/**
+	 * With liked licenses a license is acceptable when it is liked, otherwise
+	 * when it is not disliked. {@code license} is a single license name.
+	 */
+	public boolean isAcceptableLicenseName(String license) {
+		return isAcceptableCorrectName(getCorrectLicenseName(license));
+	}
+
+	/**
+	 * Like {@link #isAcceptableLicenseName(String)} for a name that is
+	 * already coalesced.
+	 */
+	boolean isAcceptableCorrectName(String correct) {
+		if (containsLikedLicenses()) {
+			return isLikedLicense(correct);
+		}
+		return !isDislikedLicense(correct);
+	}
+
+	/**
+	 * Like {@link #isAcceptableLicenseName(String)} but {@code license} may be
+	 * an SPDX expression such as {@code Apache-2.0 OR MIT}.
+	 */
+	public boolean isAcceptableLicense(String license) {
+		return getLicenseExpression(license).isSatisfiedBy(this);
+	}
+
+	/**
+	 * Decide whether an artifact with the given (normalized) licenses is liked,
+	 * disliked or missing licensing information. Each license name is judged
+	 * once per policy; after that a shared {@link LicenseSet} takes one
+	 * intersection of its id mask with the acceptable ids, and any other set
+	 * one lookup of the id of each name.
+	 * 
+	 * @param exempt
+	 *            the artifact is exempt from being disliked
+	 */
+	public LicenseVerdict getVerdict(Set<String> licenses, boolean exempt) {
+		if (licenses.isEmpty()) {
+			return LicenseVerdict.MISSING;
+		}
+		if (exempt || (!containsDislikedLicenses() && !containsLikedLicenses())) {
+			return LicenseVerdict.LIKED;
+		}
+
+		LicenseTable table = LicenseTable.current();
+		Policy current = policy;
+		if (licenses instanceof LicenseSet && ((LicenseSet) licenses).getTable() == table) {
+			BitSet ids = ((LicenseSet) licenses).getIds();
+			if (current == null || current.table != table || !current.hasDecided(ids)) {
+				current = decide(table, licenses);
+			}
+			return ids.intersects(current.acceptable) ? LicenseVerdict.LIKED : LicenseVerdict.DISLIKED;
+		}
+
+		for (String license : licenses) {
+			if (license != null) {
+				int id = table.idOf(license);
+				if (current == null || current.table != table || !current.decided.get(id)) {
+					current = decide(table, licenses);
+				}
+				if (current.acceptable.get(id)) {
+					return LicenseVerdict.LIKED;
+				}
+			}
+		}
+		return LicenseVerdict.DISLIKED;
+	}
+
+	/**
+	 * Judge the license names of {@code licenses} not judged yet. A fresh
+	 * policy starts with the names the requirements themselves mention.
+	 */
+	private synchronized Policy decide(LicenseTable table, Collection<String> licenses) {
+		Policy current = policy;
+		if (current == null || current.table != table) {
+			current = new Policy(table, new BitSet(), new BitSet());
+			decide(current, likedLicenses);
+			decide(current, dislikedLicenses);
+			for (CoalescedLicense coalesced : coalescedLicenses) {
+				decide(current, Collections.singleton(coalesced.getFinalName()));
+				decide(current, coalesced.getOtherNames());
+			}
+		} else if (current.hasDecided(licenses)) {
+			return current;
+		} else {
+			current = new Policy(table, (BitSet) current.acceptable.clone(), (BitSet) current.decided.clone());
+		}
+		decide(current, licenses);
+		policy = current;
+		return current;
+	}
+
+	/**
+	 * A single license name is judged after coalescing, like
+	 * {@link #isAcceptableLicenseName(String)}; an expression as a whole.
+	 */
+	private void decide(Policy draft, Collection<String> licenses) {
+		if (licenses == null) {
+			return;
+		}
+		for (String license : licenses) {
+			if (license != null) {
+				int id = draft.table.idOf(license);
+				if (!draft.decided.get(id)) {
+					draft.decided.set(id);
+					draft.acceptable.set(id, isAcceptableLicense(license));
+				}
+			}
+		}
+	}
+
+	private synchronized void policyChanged() {
+		policy = null;
+		licenseExpressions = null;
+	}
+
+	private static class Policy {
+
+		final LicenseTable table;
+
+		final BitSet acceptable;
+
+		final BitSet decided;
+
+		Policy(LicenseTable table, BitSet acceptable, BitSet decided) {
+			this.table = table;
+			this.acceptable = acceptable;
+			this.decided = decided;
+		}
+
+		boolean hasDecided(BitSet ids) {
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				if (!decided.get(id)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean hasDecided(Collection<String> licenses) {
+			for (String license : licenses) {
+				if (license != null && !decided.get(table.idOf(license))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * @return the compiled form of {@code license}, parsed once per distinct
+	 *         text.
+	 */
+	public LicenseExpression getLicenseExpression(String license) {
+		Map<String, LicenseExpression> expressions = getLicenseExpressions();
+		LicenseExpression expression = expressions.get(license);
+		if (expression == null) {
+			expression = LicenseExpression.parse(license, this);
+			expressions.put(license, expression);
+		}
+		return expression;
+	}
+
+	private synchronized Map<String, LicenseExpression> getLicenseExpressions() {
+		if (licenseExpressions == null) {
+			licenseExpressions = new ConcurrentHashMap<String, LicenseExpression>();
+		}
+		return licenseExpressions;
+	}
 	
 	public String getCorrectLicenseName(String name) {
 		for (CoalescedLicense coalesced : coalescedLicenses) {
@@ -92,7 +285,9 @@ public class LicensingRequirements {
 	}
 	
 	/**
-	 * Coalesce license names and split dual licenses, replace override licenses.
+	 * Coalesce license names and split dual licenses and {@code OR}
+	 * expressions, replace override licenses. Other compound expressions are
+	 * kept whole with their license names coalesced.
 	 * @param artifact
 	 */
 	public void normalizeLicenses(ArtifactWithLicenses artifact) {
@@ -107,23 +302,31 @@ public class LicensingRequirements {
 	    Set<String> normalizedLicenses = new HashSet<String>();
 	    for (String license: artifact.getLicenses())
 	    {
-	        String correct = getCorrectLicenseName( license );
-	        boolean found = false;
-            for (DualLicense dualLicense : getDualLicenses())
-            {
-                if (correct.equals(dualLicense.getFinalName()))
+	        for (LicenseExpression alternative : getLicenseExpression( license ).getAlternatives())
+	        {
+	            if (alternative.isCompound())
+	            {
+	                normalizedLicenses.add( alternative.toCanonicalString( this ) );
+	                continue;
+	            }
+	            String correct = alternative.toCanonicalString( this );
+	            boolean found = false;
+                for (DualLicense dualLicense : getDualLicenses())
                 {
-                    for (String option : dualLicense.getOptionalLicenses())
+                    if (correct.equals(dualLicense.getFinalName()))
                     {
-                        normalizedLicenses.add( option );
+                        for (String option : dualLicense.getOptionalLicenses())
+                        {
+                            normalizedLicenses.add( option );
+                        }
+                        found = true;
+                        continue;
                     }
-                    found = true;
-                    continue;
                 }
-            }
-            if (!found)
-	        {
-	            normalizedLicenses.add( correct );
+                if (!found)
+	            {
+	                normalizedLicenses.add( correct );
+	            }
 	        }
 	    }
 	    artifact.setLicenses( normalizedLicenses );
@@ -190,6 +393,8 @@ public class LicensingRequirements {
 
 	public void combineWith(LicensingRequirements req) {
 
+		policyChanged();
+
 		if (req.getDislikedLicenses() != null) {
 			for (String source : req.getDislikedLicenses()) {
 				addDislikedLicense(source);
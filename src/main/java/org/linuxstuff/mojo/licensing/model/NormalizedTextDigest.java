@@ -0,0 +1,78 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.linuxstuff.mojo.licensing.FileUtil;
+
+/**
+ * A SHA-256 digest of text that ignores how its lines end: {@code \r\n},
+ * {@code \r} and {@code \n} are the same line break, and a line break at the
+ * very end does not count. Texts in the same encoding get the same digest
+ * exactly when {@code FileUtils.contentEqualsIgnoreEOL} finds them equal.
+ */
+public class NormalizedTextDigest {
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final MessageDigest digest = FileUtil.newSha256();
+
+	private boolean afterCarriageReturn;
+
+	/**
+	 * A line break is held back until more text follows, so a final one can
+	 * be dropped.
+	 */
+	private boolean pendingLineBreak;
+
+	public void update(byte[] bytes, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			byte b = bytes[i];
+			if (afterCarriageReturn && b == '\n') {
+				afterCarriageReturn = false;
+				continue;
+			}
+			afterCarriageReturn = b == '\r';
+
+			if (pendingLineBreak) {
+				digest.update((byte) '\n');
+				pendingLineBreak = false;
+			}
+			if (b == '\r' || b == '\n') {
+				pendingLineBreak = true;
+			} else {
+				digest.update(b);
+			}
+		}
+	}
+
+	/**
+	 * Add the content of {@code file}, read a buffer at a time.
+	 */
+	public void update(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				update(buffer, 0, read);
+			}
+		}
+	}
+
+	public byte[] digest() {
+		return digest.digest();
+	}
+
+	/**
+	 * @return the digest of the whole file.
+	 */
+	public static byte[] of(File file) throws IOException {
+		NormalizedTextDigest digest = new NormalizedTextDigest();
+		digest.update(file);
+		return digest.digest();
+	}
+
+}
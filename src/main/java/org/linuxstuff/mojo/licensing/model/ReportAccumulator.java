@@ -0,0 +1,17 @@
+package org.linuxstuff.mojo.licensing.model;
+
+/**
+ * Something artifacts can be filed into while a report is being built.
+ * 
+ * @see LicensingReport
+ * @see ConcurrentLicensingReport
+ */
+public interface ReportAccumulator {
+
+	void addLicensedArtifact(ArtifactWithLicenses artifact);
+
+	void addMissingLicense(ArtifactWithLicenses artifact);
+
+	void addDislikedArtifact(ArtifactWithLicenses artifact);
+
+}
@@ -0,0 +1,183 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+/**
+ * Reads the artifacts of one section of a report file one at a time, without
+ * loading the rest of the report. The file may be XML or NDJSON, compressed or
+ * not, but has to be sorted by artifact id like
+ * {@link LicensingReport#writeReport(File, ReportFormat, boolean)} writes it.
+ */
+abstract class ReportCursor implements Closeable {
+
+	private static final XMLInputFactory INPUT_FACTORY = new StaxDriver().getInputFactory();
+
+	private final File file;
+
+	private ArtifactWithLicenses previous;
+
+	ReportCursor(File file) {
+		this.file = file;
+	}
+
+	static ReportCursor open(File file, String section) throws IOException {
+		InputStream in = LicensingReport.openReport(file);
+		try {
+			if (LicensingReport.startsWithJson(in)) {
+				return new Json(file, in, section);
+			}
+			return new Xml(file, in, section);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the next artifact of the section, or {@code null} when there
+	 *         are no more.
+	 * @throws IOException
+	 *             also when the artifacts are out of order
+	 */
+	ArtifactWithLicenses next() throws IOException {
+		ArtifactWithLicenses artifact = read();
+		if (artifact != null) {
+			if (previous != null && ArtifactWithLicenses.BY_ARTIFACT_ID.compare(previous, artifact) >= 0) {
+				throw new IOException(file + " is not sorted by artifact id at " + artifact.getArtifactId());
+			}
+			previous = artifact;
+		}
+		return artifact;
+	}
+
+	abstract ArtifactWithLicenses read() throws IOException;
+
+	private static class Json extends ReportCursor {
+
+		private final LicensingReportJsonReader reader;
+		private final String section;
+		private boolean inSection;
+
+		Json(File file, InputStream in, String section) throws IOException {
+			super(file);
+			this.reader = new LicensingReportJsonReader(in);
+			this.section = section;
+		}
+
+		@Override
+		ArtifactWithLicenses read() throws IOException {
+			ArtifactWithLicenses artifact;
+			while ((artifact = reader.next()) != null) {
+				if (section.equals(reader.getSection())) {
+					inSection = true;
+					return artifact;
+				}
+				if (inSection) {
+					// sections are written one after the other
+					break;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
+	private static class Xml extends ReportCursor {
+
+		private final InputStream in;
+		private final XMLStreamReader reader;
+		private final String section;
+		private boolean started;
+		private boolean ended;
+
+		Xml(File file, InputStream in, String section) throws IOException {
+			super(file);
+			this.in = in;
+			this.section = section;
+			try {
+				this.reader = INPUT_FACTORY.createXMLStreamReader(in);
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		ArtifactWithLicenses read() throws IOException {
+			try {
+				if (!started) {
+					started = true;
+					ended = !skipTo(section);
+				}
+				if (ended) {
+					return null;
+				}
+
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						return readArtifact();
+					}
+					if (event == XMLStreamConstants.END_ELEMENT) {
+						break;
+					}
+				}
+				ended = true;
+				return null;
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private boolean skipTo(String element) throws XMLStreamException {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && element.equals(reader.getLocalName())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private ArtifactWithLicenses readArtifact() throws XMLStreamException {
+			ArtifactWithLicenses artifact = new ArtifactWithLicenses(reader.getAttributeValue(null, "id"), reader.getAttributeValue(null, "name"));
+			List<String> licenses = new ArrayList<String>();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					licenses.add(reader.getElementText());
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					break;
+				}
+			}
+			artifact.addLicenses(licenses);
+			return artifact;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+}
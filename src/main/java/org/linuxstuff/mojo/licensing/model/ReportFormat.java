@@ -0,0 +1,58 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.util.Locale;
+
+/**
+ * The file formats a {@code LicensingReport} can be written in.
+ */
+public enum ReportFormat {
+
+	/** The XStream compatible XML document. */
+	XML(".xml"),
+
+	/**
+	 * Newline delimited JSON: a header object with the counts, then one object
+	 * per artifact.
+	 */
+	NDJSON(".ndjson");
+
+	private final String extension;
+
+	ReportFormat(String extension) {
+		this.extension = extension;
+	}
+
+	/**
+	 * @return the file name extension of the format, with the dot.
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * @return {@code filename} with an extension of another format replaced
+	 *         by the extension of this one, any other name as it is.
+	 */
+	public String toFilename(String filename) {
+		for (ReportFormat format : values()) {
+			if (filename.toLowerCase(Locale.ENGLISH).endsWith(format.extension)) {
+				return filename.substring(0, filename.length() - format.extension.length()) + extension;
+			}
+		}
+		return filename;
+	}
+
+	/**
+	 * @param name
+	 *            the format name in any case, {@code null} means {@link #XML}
+	 * @throws IllegalArgumentException
+	 *             for unknown formats
+	 */
+	public static ReportFormat fromName(String name) {
+		if (name == null || "".equals(name)) {
+			return XML;
+		}
+		return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+	}
+
+}
@@ -0,0 +1,53 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Writes a licensing report piece by piece: the counts first, then each
+ * section with its artifacts in artifact id order. A whole
+ * {@code LicensingReport} is written through {@link #write(LicensingReport)},
+ * {@link LicensingReportMerger} writes the sections as it merges them.
+ */
+abstract class ReportStreamWriter {
+
+	static final String LICENSED_SECTION = "artifacts";
+	static final String MISSING_SECTION = "license-missing";
+	static final String DISLIKED_SECTION = "disliked-artifacts";
+
+	/**
+	 * The sections in the order they are written.
+	 */
+	static final String[] SECTIONS = { LICENSED_SECTION, MISSING_SECTION, DISLIKED_SECTION };
+
+	abstract void startReport(long dislikedCount, long missingCount, boolean passing) throws IOException;
+
+	abstract void startSection(String section) throws IOException;
+
+	abstract void writeArtifact(ArtifactWithLicenses artifact) throws IOException;
+
+	abstract void endSection() throws IOException;
+
+	abstract void endReport() throws IOException;
+
+	void write(LicensingReport report) throws IOException {
+		startReport(report.dislikedArtifactsCount, report.missingLicensesCount, report.passing);
+		writeSection(LICENSED_SECTION, report.getLicensedArtifacts());
+		writeSection(MISSING_SECTION, report.getLicenseMissing());
+		writeSection(DISLIKED_SECTION, report.getDislikedArtifacts());
+		endReport();
+	}
+
+	private void writeSection(String section, Collection<ArtifactWithLicenses> artifacts) throws IOException {
+		if (artifacts == null) {
+			return;
+		}
+
+		startSection(section);
+		for (ArtifactWithLicenses artifact : LicensingReport.sortedById(artifacts)) {
+			writeArtifact(artifact);
+		}
+		endSection();
+	}
+
+}
@@ -0,0 +1,32 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Where a text report goes. Generated lines are passed as text, while static
+ * sections such as license texts are passed as the files they live in, so a
+ * sink can copy them without decoding and encoding every byte.
+ */
+abstract class TextReportSink implements Closeable {
+
+	static final String EOL = System.getProperty("line.separator");
+
+	abstract void write(String text) throws IOException;
+
+	/**
+	 * Copy the content of {@code file} to the report unchanged.
+	 */
+	abstract void writeFile(File file) throws IOException;
+
+	void println(String text) throws IOException {
+		write(text);
+		write(EOL);
+	}
+
+	void println() throws IOException {
+		write(EOL);
+	}
+
+}
@@ -0,0 +1,200 @@
+package org.linuxstuff.mojo.licensing.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.resource.ResourceManager;
+import org.linuxstuff.mojo.licensing.TextResourceCache;
+
+/**
+ * A user supplied layout for the text reports, given as a properties file
+ * with one template per part of the report:
+ * 
+ * <pre>
+ * header          once, before the licenses
+ * license         for each license, before its artifacts
+ * artifact        for each artifact under that license
+ * license.footer  for each license, after its artifacts
+ * footer          once, after the licenses
+ * multi.header    once, if some artifacts have more than one license
+ * multi.artifact  for each such artifact
+ * multi.license   for each of its licenses
+ * multi.footer    once, after them
+ * </pre>
+ * 
+ * Parts that are left out render as nothing. Templates may use
+ * <code>${license}</code>, <code>${artifact}</code> and
+ * <code>${license.text}</code>, the full text of the license located like
+ * the built-in licenses report does; outside of a license or artifact they
+ * are empty. Line breaks become the platform's.
+ * <p>
+ * The file is read with {@link Properties#load(java.io.Reader)}: a backslash
+ * starts an escape, so write {@code \\} for a backslash, {@code \n} for a
+ * line break and {@code \u005cu0020} for a leading space, which would otherwise
+ * be trimmed, and end a line with {@code \} to continue a template on the
+ * next one.
+ * <p>
+ * A template is compiled once into a list of literal and placeholder
+ * segments, which are then written straight to the report.
+ */
+public class TextTemplate {
+
+	private static final TextResourceCache.Compiler<TextTemplate> COMPILER = new TextResourceCache.Compiler<TextTemplate>() {
+		public TextTemplate compile(byte[] text, String resourceName) throws MojoExecutionException {
+			return new TextTemplate(text, resourceName);
+		}
+	};
+
+	private enum Placeholder {
+		LICENSE("license"), ARTIFACT("artifact"), LICENSE_TEXT("license.text");
+
+		private final String name;
+
+		Placeholder(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * Literal text, or a placeholder if {@code text} is {@code null}.
+	 */
+	private static class Segment {
+
+		final String text;
+		final Placeholder placeholder;
+
+		Segment(String text, Placeholder placeholder) {
+			this.text = text;
+			this.placeholder = placeholder;
+		}
+	}
+
+	private final List<Segment> header;
+	private final List<Segment> license;
+	private final List<Segment> artifact;
+	private final List<Segment> licenseFooter;
+	private final List<Segment> footer;
+	private final List<Segment> multiHeader;
+	private final List<Segment> multiArtifact;
+	private final List<Segment> multiLicense;
+	private final List<Segment> multiFooter;
+
+	private TextTemplate(byte[] source, String name) throws MojoExecutionException {
+		Properties parts = new Properties();
+		try {
+			parts.load(new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read template " + name, e);
+		}
+
+		header = compile(parts, "header", name);
+		license = compile(parts, "license", name);
+		artifact = compile(parts, "artifact", name);
+		licenseFooter = compile(parts, "license.footer", name);
+		footer = compile(parts, "footer", name);
+		multiHeader = compile(parts, "multi.header", name);
+		multiArtifact = compile(parts, "multi.artifact", name);
+		multiLicense = compile(parts, "multi.license", name);
+		multiFooter = compile(parts, "multi.footer", name);
+	}
+
+	/**
+	 * @param texts
+	 *            the cache the template's text is read through
+	 * @param resourceName
+	 *            anything the {@code locator} can find
+	 * @return the compiled template, or {@code null} if no template was asked
+	 *         for. The template is kept with the text in {@code texts}, so it
+	 *         is only compiled again if its resource changed.
+	 */
+	public static TextTemplate forResource(TextResourceCache texts, ResourceManager locator, String resourceName) throws MojoExecutionException {
+		return texts.getCompiled(locator, resourceName, TextTemplate.class, COMPILER);
+	}
+
+	private static List<Segment> compile(Properties parts, String part, String name) throws MojoExecutionException {
+		String text = parts.getProperty(part);
+		if (text == null || text.isEmpty()) {
+			return Collections.emptyList();
+		}
+		text = text.replace("\r\n", "\n").replace("\n", TextReportSink.EOL);
+
+		List<Segment> segments = new ArrayList<Segment>();
+		int position = 0;
+		while (position < text.length()) {
+			int start = text.indexOf("${", position);
+			if (start < 0) {
+				segments.add(new Segment(text.substring(position), null));
+				break;
+			}
+			int end = text.indexOf('}', start);
+			if (end < 0) {
+				throw new MojoExecutionException("Unterminated placeholder in " + part + " of template " + name);
+			}
+			if (start > position) {
+				segments.add(new Segment(text.substring(position, start), null));
+			}
+			segments.add(new Segment(null, placeholder(text.substring(start + 2, end), part, name)));
+			position = end + 1;
+		}
+		return segments;
+	}
+
+	private static Placeholder placeholder(String placeholderName, String part, String name) throws MojoExecutionException {
+		for (Placeholder placeholder : Placeholder.values()) {
+			if (placeholder.name.equals(placeholderName)) {
+				return placeholder;
+			}
+		}
+		throw new MojoExecutionException("Unknown placeholder ${" + placeholderName + "} in " + part + " of template " + name);
+	}
+
+	void render(TextReportSink sink, LicenseGrouping grouping, ResourceManager locator, TextResourceCache texts) throws IOException, MojoExecutionException {
+		write(header, sink, null, null, locator, texts);
+		for (Entry<String, SortedSet<String>> entry : grouping.getArtifactsPerLicense().entrySet()) {
+			write(license, sink, entry.getKey(), null, locator, texts);
+			for (String artifactName : entry.getValue()) {
+				write(artifact, sink, entry.getKey(), artifactName, locator, texts);
+			}
+			write(licenseFooter, sink, entry.getKey(), null, locator, texts);
+		}
+		write(footer, sink, null, null, locator, texts);
+
+		SortedMap<String, SortedSet<String>> multiLicensed = grouping.getMultiLicensed();
+		if (!multiLicensed.isEmpty()) {
+			write(multiHeader, sink, null, null, locator, texts);
+			for (Entry<String, SortedSet<String>> entry : multiLicensed.entrySet()) {
+				write(multiArtifact, sink, null, entry.getKey(), locator, texts);
+				for (String licenseName : entry.getValue()) {
+					write(multiLicense, sink, licenseName, entry.getKey(), locator, texts);
+				}
+			}
+			write(multiFooter, sink, null, null, locator, texts);
+		}
+	}
+
+	private static void write(List<Segment> segments, TextReportSink sink, String licenseName, String artifactName, ResourceManager locator,
+			TextResourceCache texts) throws IOException, MojoExecutionException {
+		for (Segment segment : segments) {
+			if (segment.placeholder == null) {
+				sink.write(segment.text);
+			} else if (segment.placeholder == Placeholder.LICENSE) {
+				sink.write(licenseName == null ? "" : licenseName);
+			} else if (segment.placeholder == Placeholder.ARTIFACT) {
+				sink.write(artifactName == null ? "" : artifactName);
+			} else if (licenseName != null) {
+				sink.writeFile(texts.getFile(locator, licenseName));
+			}
+		}
+	}
+
+}
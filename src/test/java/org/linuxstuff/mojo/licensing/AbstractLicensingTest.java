@@ -8,6 +8,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.junit.Before;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
 import org.linuxstuff.mojo.licensing.model.LicensingRequirements;
 
 public abstract class AbstractLicensingTest {
@@ -46,4 +47,12 @@ public abstract class AbstractLicensingTest {
 
 	}
 
+	protected static ArtifactWithLicenses artifact(String id, String name, String... licenses) {
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses(id, name);
+		for (String license : licenses) {
+			artifact.addLicense(license);
+		}
+		return artifact;
+	}
+
 }
@@ -0,0 +1,203 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.License;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectBuilder;
+import org.codehaus.plexus.logging.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class AggregateReportMojoTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Modules evaluated in parallel give the same aggregated report as one
+	 * after the other: a dependency of several modules keeps the name it has
+	 * in the first of them.
+	 */
+	@Test
+	public void testParallelModulesMatchSequential() throws Exception {
+		DependenciesTool dependenciesTool = Mockito.mock(DependenciesTool.class);
+		List<MavenProject> modules = modules(dependenciesTool);
+
+		AggregateReportMojo mojo = new AggregateReportMojo();
+		mojo.dependenciesTool = dependenciesTool;
+
+		mojo.threads = 1;
+		LicensingReport sequential = mojo.evaluateModules(modules, null);
+		mojo.threads = 4;
+		LicensingReport parallel = mojo.evaluateModules(modules, null);
+
+		assertEquals(xml(sequential), xml(parallel));
+		List<String> names = new ArrayList<String>();
+		for (ArtifactWithLicenses artifact : parallel.getLicensedArtifacts()) {
+			if (artifact.getArtifactId().contains(":dependency4:")) {
+				names.add(artifact.getName());
+			}
+		}
+		assertEquals(Collections.singletonList("Dependency 4 of module 2"), names);
+	}
+
+	/**
+	 * Evaluating each distinct dependency once gives the same report and
+	 * index as evaluating every module on its own, and neither indexes the
+	 * artifacts declared missing as used by a module.
+	 */
+	@Test
+	public void testDistinctDependenciesMatchModuleReports() throws Exception {
+		DependenciesTool dependenciesTool = Mockito.mock(DependenciesTool.class);
+		List<MavenProject> modules = modules(dependenciesTool);
+
+		AggregateReportMojo mojo = new AggregateReportMojo();
+		mojo.dependenciesTool = dependenciesTool;
+		mojo.threads = 4;
+		mojo.licensingRequirements.addMissingArtifact(new ArtifactWithLicenses("group:declared:jar:1.0", "Declared"));
+
+		LicensingIndex perModuleIndex = new LicensingIndex();
+		LicensingReport perModule = mojo.evaluateModules(modules, perModuleIndex);
+		LicensingIndex distinctIndex = new LicensingIndex();
+		LicensingReport distinct = mojo.evaluateUniqueDependencies(modules, distinctIndex);
+
+		assertEquals(xml(perModule), xml(distinct));
+
+		File perModuleFile = new File(temporaryFolder.getRoot(), "per-module.index");
+		perModuleIndex.write(perModuleFile);
+		File distinctFile = new File(temporaryFolder.getRoot(), "distinct.index");
+		distinctIndex.write(distinctFile);
+		assertEquals(read(perModuleFile), read(distinctFile));
+		assertEquals("license-missing", perModuleIndex.getSection("group:declared:jar:1.0"));
+		assertTrue(perModuleIndex.getModulesUsing("group:declared:jar:1.0").isEmpty());
+
+		verify(dependenciesTool, times(modules.size())).loadProjectDependencies(any(), any(), any(), any(), notNull());
+	}
+
+	/**
+	 * With the real {@code DefaultDependenciesTool} every distinct POM is
+	 * built once however many modules use it, and POMs are only built on the
+	 * calling thread however many threads evaluate them.
+	 */
+	@Test
+	public void testEachPomIsBuiltOnceOnOneThread() throws Exception {
+		final Set<Thread> builders = Collections.synchronizedSet(new HashSet<Thread>());
+		MavenProjectBuilder projectBuilder = Mockito.mock(MavenProjectBuilder.class);
+		when(projectBuilder.buildFromRepository(any(Artifact.class), any(), any(), anyBoolean())).thenAnswer(new Answer<MavenProject>() {
+			@Override
+			public MavenProject answer(InvocationOnMock invocation) {
+				builders.add(Thread.currentThread());
+				Artifact artifact = invocation.getArgument(0);
+				MavenProject dependency = new MavenProject();
+				dependency.setGroupId(artifact.getGroupId());
+				dependency.setArtifactId(artifact.getArtifactId());
+				dependency.setVersion(artifact.getVersion());
+				dependency.setPackaging(artifact.getType());
+				dependency.setName(artifact.getArtifactId());
+				return dependency;
+			}
+		});
+		DefaultDependenciesTool dependenciesTool = new DefaultDependenciesTool();
+		dependenciesTool.mavenProjectBuilder = projectBuilder;
+		dependenciesTool.enableLogging(Mockito.mock(Logger.class));
+
+		List<MavenProject> modules = new ArrayList<MavenProject>();
+		int uses = 0;
+		for (int i = 0; i < 12; i++) {
+			MavenProject module = new MavenProject();
+			module.setArtifactId("module" + i);
+			Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+			for (int j = 0; j < 20; j++) {
+				if ((i + j) % 3 == 0) {
+					artifacts.add(new DefaultArtifact("group", "dependency" + j, VersionRange.createFromVersion("1.0"), "compile", "jar", null,
+							new DefaultArtifactHandler("jar")));
+				}
+			}
+			module.setDependencyArtifacts(artifacts);
+			modules.add(module);
+			uses += artifacts.size();
+		}
+
+		AggregateReportMojo mojo = new AggregateReportMojo();
+		mojo.dependenciesTool = dependenciesTool;
+		mojo.threads = 4;
+
+		LicensingReport distinct = mojo.evaluateUniqueDependencies(modules, new LicensingIndex());
+		assertEquals(20, distinct.getLicenseMissing().size());
+		verify(projectBuilder, times(20)).buildFromRepository(any(Artifact.class), any(), any(), anyBoolean());
+
+		// without a cache every module builds the POMs of its dependencies
+		LicensingReport perModule = mojo.evaluateModules(modules, null);
+		assertEquals(xml(distinct), xml(perModule));
+		verify(projectBuilder, times(20 + uses)).buildFromRepository(any(Artifact.class), any(), any(), anyBoolean());
+
+		assertEquals(Collections.singleton(Thread.currentThread()), builders);
+	}
+
+	private static List<MavenProject> modules(DependenciesTool dependenciesTool) {
+		List<MavenProject> modules = new ArrayList<MavenProject>();
+		for (int i = 0; i < 12; i++) {
+			MavenProject module = new MavenProject();
+			module.setArtifactId("module" + i);
+
+			TreeMap<String, MavenProject> dependencies = new TreeMap<String, MavenProject>();
+			for (int j = 0; j < 20; j++) {
+				if ((i + j) % 3 == 0) {
+					MavenProject dependency = new MavenProject();
+					dependency.setArtifactId("dependency" + j);
+					dependency.setName("Dependency " + j + " of module " + i);
+					if (j % 5 != 0) {
+						License license = new License();
+						license.setName(j % 2 == 0 ? "MIT" : "Apache-2.0");
+						dependency.setLicenses(Collections.singletonList(license));
+					}
+					dependencies.put(dependency.getId(), dependency);
+				}
+			}
+			when(dependenciesTool.loadProjectDependencies(same(module), any(), any(), any(), any())).thenReturn(dependencies);
+			modules.add(module);
+		}
+		return modules;
+	}
+
+	private String xml(LicensingReport report) throws Exception {
+		File file = temporaryFolder.newFile();
+		report.writeReport(file);
+		return read(file);
+	}
+
+	private static String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+}
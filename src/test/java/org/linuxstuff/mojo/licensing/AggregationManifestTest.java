@@ -0,0 +1,214 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+public class AggregationManifestTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testOnlyChangedReportsAreReparsed() throws Exception {
+		File directory = temporaryFolder.newFolder("aggregation");
+		File first = moduleReport("first.xml", "group:first:jar:1.0");
+		File second = moduleReport("second.xml", "group:second:jar:1.0");
+
+		CountingManifest manifest = new CountingManifest(directory);
+		assertFalse(manifest.isUpToDate(Arrays.asList(first, second), "out"));
+		manifest.aggregate(Arrays.asList(first, second), 2);
+		manifest.save();
+		// parsed in parallel, so in any order
+		assertEquals(new HashSet<File>(Arrays.asList(first, second)), new HashSet<File>(manifest.parsed));
+
+		manifest = new CountingManifest(directory);
+		assertTrue(manifest.isUpToDate(Arrays.asList(first, second), "out"));
+		assertFalse(manifest.isUpToDate(Arrays.asList(first, second), "other"));
+
+		writeReport(second, "group:changed:jar:1.0");
+		manifest = new CountingManifest(directory);
+		assertFalse(manifest.isUpToDate(Arrays.asList(first, second), "out"));
+		LicensingReport aggregate = manifest.aggregate(Arrays.asList(first, second), 2);
+		manifest.save();
+		assertEquals(Collections.singletonList(second), manifest.parsed);
+		assertEquals(Arrays.asList("group:changed:jar:1.0", "group:first:jar:1.0"), ids(aggregate));
+
+		// the manifest and the aggregate plus one contribution per module,
+		// the old one is gone
+		assertEquals(4, directory.list().length);
+	}
+
+	@Test
+	public void testRemovedReportsAreDropped() throws Exception {
+		File directory = temporaryFolder.newFolder("aggregation");
+		File first = moduleReport("first.xml", "group:first:jar:1.0");
+		File second = moduleReport("second.xml", "group:second:jar:1.0");
+
+		AggregationManifest manifest = new AggregationManifest(directory);
+		manifest.isUpToDate(Arrays.asList(first, second), "out");
+		manifest.aggregate(Arrays.asList(first, second), 1);
+		manifest.save();
+
+		manifest = new AggregationManifest(directory);
+		assertFalse(manifest.isUpToDate(Collections.singletonList(first), "out"));
+		assertEquals(Collections.singletonList("group:first:jar:1.0"), ids(manifest.aggregate(Collections.singletonList(first), 1)));
+		manifest.save();
+
+		// the manifest and the aggregate plus the one remaining contribution
+		assertEquals(3, directory.list().length);
+	}
+
+	/**
+	 * Changing one module and removing another only parses the changed one,
+	 * and gives the same aggregate as combining all module reports anew.
+	 */
+	@Test
+	public void testChangedAndRemovedModulesAreTakenOutOfThePreviousAggregate() throws Exception {
+		File directory = temporaryFolder.newFolder("aggregation");
+		File first = moduleReport("first.xml", "First", "group:shared:jar:1.0", "MIT");
+		File second = moduleReport("second.xml", "Second", "group:shared:jar:1.0", "EPL-1.0");
+		File third = moduleReport("third.xml", "Third", "group:shared:jar:1.0", "GPL-3.0");
+		File fourth = moduleReport("fourth.xml", "Fourth", "group:fourth:jar:1.0", "MIT");
+
+		AggregationManifest manifest = new AggregationManifest(directory);
+		manifest.isUpToDate(Arrays.asList(first, second, third, fourth), "out");
+		manifest.aggregate(Arrays.asList(first, second, third, fourth), 2);
+		manifest.save();
+
+		writeReport(first, "Changed", "group:changed:jar:1.0", "Apache-2.0");
+		List<File> modules = Arrays.asList(first, second, fourth);
+		CountingManifest incremental = new CountingManifest(directory);
+		assertFalse(incremental.isUpToDate(modules, "out"));
+		LicensingReport aggregate = incremental.aggregate(modules, 2);
+		incremental.save();
+
+		assertEquals(Collections.singletonList(first), incremental.parsed);
+		assertEquals(xml(combine(modules)), xml(aggregate));
+		ArtifactWithLicenses shared = find(aggregate, "group:shared:jar:1.0");
+		assertEquals("Second", shared.getName());
+		assertEquals(Collections.singleton("EPL-1.0"), shared.getLicenses());
+		assertEquals(Collections.singleton("group:changed:jar:1.0"), incremental.getArtifactIds(first));
+
+		// bringing the third module back puts it in again
+		modules = Arrays.asList(first, second, third, fourth);
+		incremental = new CountingManifest(directory);
+		incremental.isUpToDate(modules, "out");
+		aggregate = incremental.aggregate(modules, 2);
+		assertEquals(xml(combine(modules)), xml(aggregate));
+	}
+
+	/**
+	 * Identical module reports share a contribution, which is parsed and
+	 * written once even when reports are read in parallel.
+	 */
+	@Test
+	public void testIdenticalReportsAreParsedOnce() throws Exception {
+		File directory = temporaryFolder.newFolder("aggregation");
+		File first = moduleReport("first.xml", "Same", "group:same:jar:1.0", "MIT");
+		File second = moduleReport("second.xml", "Same", "group:same:jar:1.0", "MIT");
+		List<File> modules = Arrays.asList(first, second);
+
+		CountingManifest manifest = new CountingManifest(directory);
+		manifest.isUpToDate(modules, "out");
+		LicensingReport aggregate = manifest.aggregate(modules, 2);
+		manifest.save();
+
+		assertEquals(1, manifest.parsed.size());
+		assertEquals(xml(combine(modules)), xml(aggregate));
+		assertEquals(Collections.singleton("group:same:jar:1.0"), manifest.getArtifactIds(second));
+		// the manifest and the aggregate plus the one shared contribution,
+		// without temporary files left behind
+		assertEquals(3, directory.list().length);
+	}
+
+	/**
+	 * Counts the module reports that had to be parsed.
+	 */
+	private static class CountingManifest extends AggregationManifest {
+
+		final List<File> parsed = Collections.synchronizedList(new ArrayList<File>());
+
+		CountingManifest(File directory) throws MojoExecutionException {
+			super(directory);
+		}
+
+		@Override
+		LicensingReport parse(File moduleReport) throws MojoExecutionException {
+			parsed.add(moduleReport);
+			return super.parse(moduleReport);
+		}
+	}
+
+	private static LicensingReport combine(List<File> moduleReports) throws MojoExecutionException {
+		LicensingReport combined = new LicensingReport();
+		for (File moduleReport : moduleReports) {
+			combined.combineWith(LicensingReport.readReport(moduleReport));
+		}
+		return combined;
+	}
+
+	private String xml(LicensingReport report) throws Exception {
+		File file = temporaryFolder.newFile();
+		report.writeReport(file);
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private static ArtifactWithLicenses find(LicensingReport report, String id) {
+		for (ArtifactWithLicenses artifact : report.getLicensedArtifacts()) {
+			if (artifact.getArtifactId().equals(id)) {
+				return artifact;
+			}
+		}
+		return null;
+	}
+
+	private static List<String> ids(LicensingReport report) {
+		List<String> ids = new ArrayList<String>();
+		for (ArtifactWithLicenses artifact : report.getLicensedArtifacts()) {
+			ids.add(artifact.getArtifactId());
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private File moduleReport(String name, String artifactId) throws Exception {
+		File file = new File(temporaryFolder.getRoot(), name);
+		writeReport(file, artifactId);
+		return file;
+	}
+
+	private File moduleReport(String name, String artifactName, String artifactId, String license) throws Exception {
+		File file = new File(temporaryFolder.getRoot(), name);
+		writeReport(file, artifactName, artifactId, license);
+		return file;
+	}
+
+	private void writeReport(File file, String artifactId) throws Exception {
+		writeReport(file, null, artifactId, "MIT");
+	}
+
+	private void writeReport(File file, String artifactName, String artifactId, String license) throws Exception {
+		LicensingReport report = new LicensingReport();
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses(artifactId, artifactName);
+		artifact.addLicense(license);
+		report.addLicensedArtifact(artifact);
+		report.writeReport(file);
+	}
+}
@@ -1,8 +1,14 @@
 package org.linuxstuff.mojo.licensing;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.junit.Test;
 import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
 
@@ -30,4 +36,25 @@ public class ArtifactWithLicensesComparisonTest {
 
 	}
 
+	/**
+	 * Artifacts under the same licenses share one set, and adding a license
+	 * to one of them does not change the others.
+	 */
+	@Test
+	public void testLicenseSetsAreShared() {
+		ArtifactWithLicenses awl1 = new ArtifactWithLicenses("artifactA");
+		ArtifactWithLicenses awl2 = new ArtifactWithLicenses("artifactB");
+
+		awl1.addLicense("MIT");
+		awl1.addLicense(new String("Apache-2.0"));
+		awl2.setLicenses(new HashSet<String>(Arrays.asList("Apache-2.0", "MIT")));
+
+		assertSame(awl1.getLicenses(), awl2.getLicenses());
+		assertEquals(Arrays.asList("Apache-2.0", "MIT"), new ArrayList<String>(awl1.getLicenses()));
+
+		awl2.addLicense("EPL-1.0");
+		assertEquals(2, awl1.getLicenses().size());
+		assertEquals(new HashSet<String>(Arrays.asList("Apache-2.0", "EPL-1.0", "MIT")), awl2.getLicenses());
+	}
+
 }
@@ -9,12 +9,15 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
 import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.NormalizedTextDigest;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 
 public class CheckForFailureTest {
 
@@ -158,6 +161,29 @@ public class CheckForFailureTest {
 		checkMojo.compareToExistingFile( windowsLicenseFile, linuxLicenseFile.getAbsolutePath() );
 	}
 
+	/**
+	 * The digest comparison has to agree with comparing the files line by
+	 * line.
+	 */
+	@Test
+	public void digestComparisonIgnoresEndOfLineCharacters() throws IOException
+	{
+		String[] texts = { "a\nb\nc", "a\r\nb\r\nc\r\n", "a\rb\rc\n", "a\nb\nc\n\n", "a\n\nb\nc", "a\nbc", "" };
+		for ( int i = 0; i < texts.length; i++ )
+		{
+			for ( int j = 0; j < texts.length; j++ )
+			{
+				File a = temporaryFolder.newFile();
+				File b = temporaryFolder.newFile();
+				FileUtils.writeStringToFile( a, texts[i], "UTF-8" );
+				FileUtils.writeStringToFile( b, texts[j], "UTF-8" );
+
+				assertEquals( texts[i] + " vs " + texts[j], FileUtils.contentEqualsIgnoreEOL( a, b, "UTF-8" ),
+						Arrays.equals( NormalizedTextDigest.of( a ), NormalizedTextDigest.of( b ) ) );
+			}
+		}
+	}
+
 	private File generateTextFile( List<String> fileLines, String fileName, String lineSeparator ) throws IOException
 	{
 		File windowsLicenseFile = temporaryFolder.newFile( fileName );
@@ -2,25 +2,39 @@ package org.linuxstuff.mojo.licensing;
 
 import com.google.common.collect.Sets;
 import org.apache.maven.model.License;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
 import org.linuxstuff.mojo.licensing.model.CoalescedLicense;
 import org.linuxstuff.mojo.licensing.model.LicensingReport;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.TreeMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 public class CheckMojoTest extends AbstractLicensingTest
 {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
-    public void artifactWithSingleCoalescingLicenseIsValid()
+    public void artifactWithSingleCoalescingLicenseIsValid() throws MojoExecutionException
     {
         String mitLicense = "MIT License";
         String anotherMitLicense = "MIT license";
@@ -38,6 +52,106 @@ public class CheckMojoTest extends AbstractLicensingTest
         assertEquals( 1, licensingReport.getLicensedArtifacts().size() );
     }
 
+    @Test
+    public void failFastStopsAtFirstFailingArtifact()
+    {
+        final MavenProject unlicensed = new MavenProject();
+        unlicensed.setArtifactId( "unlicensed" );
+        final MavenProject licensed = new MavenProject();
+        licensed.setArtifactId( "licensed" );
+        licensed.setLicenses( Collections.singletonList( prepareLisence( "MIT License" ) ) );
+
+        final List<String> visited = new ArrayList<>();
+        DependenciesTool dependenciesTool = Mockito.mock( DependenciesTool.class );
+        doAnswer( invocation -> {
+            DependencyVisitor visitor = invocation.getArgument( 5 );
+            for ( MavenProject dependency : Arrays.asList( unlicensed, licensed ) )
+            {
+                visited.add( dependency.getId() );
+                if ( !visitor.visit( dependency.getId(), dependency ) )
+                {
+                    break;
+                }
+            }
+            return null;
+        } ).when( dependenciesTool ).visitProjectDependencies( any(), any(), any(), any(), any(), any() );
+
+        CheckMojo checkMojo = new CheckMojo();
+        checkMojo.dependenciesTool = dependenciesTool;
+        checkMojo.failIfMissing = true;
+
+        LicensingReport licensingReport = checkMojo.generateReportFailingFast( mavenProject );
+        assertEquals( 1, licensingReport.getLicenseMissing().size() );
+        assertEquals( Collections.singletonList( unlicensed.getId() ), visited );
+    }
+
+    /**
+     * Evaluating the dependencies on several threads gives the same report as
+     * evaluating them one after the other.
+     */
+    @Test
+    public void parallelEvaluationMatchesSequential() throws Exception
+    {
+        TreeMap<String,MavenProject> projectMap = new TreeMap<>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            MavenProject dependency = new MavenProject();
+            dependency.setArtifactId( "dependency" + i );
+            dependency.setName( "Dependency " + i );
+            if ( i % 7 != 0 )
+            {
+                dependency.setLicenses( Collections.singletonList( prepareLisence( i % 3 == 0 ? "GPL" : "MIT License" ) ) );
+            }
+            projectMap.put( dependency.getId(), dependency );
+        }
+        DependenciesTool dependenciesTool = Mockito.mock( DependenciesTool.class );
+        when( dependenciesTool.loadProjectDependencies( any(), any(), any(), any(), any() ) ).thenReturn( projectMap );
+
+        CheckMojo checkMojo = new CheckMojo();
+        checkMojo.dependenciesTool = dependenciesTool;
+        checkMojo.licensingRequirements.addDislikedLicense( "GPL" );
+        // declared missing, but also resolved as a dependency
+        String duplicate = null;
+        for ( MavenProject dependency : projectMap.values() )
+        {
+            if ( "dependency1".equals( dependency.getArtifactId() ) )
+            {
+                duplicate = dependency.getId();
+            }
+        }
+        ArtifactWithLicenses declared = artifact( duplicate, "Declared", "Apache-2.0" );
+        checkMojo.licensingRequirements.addMissingArtifact( declared );
+
+        checkMojo.threads = 1;
+        LicensingReport sequential = checkMojo.generateReport( mavenProject );
+        checkMojo.threads = 4;
+        LicensingReport parallel = checkMojo.generateReport( mavenProject );
+        checkMojo.shutdownExecutor();
+
+        // artifacts are equal by id only, so compare names and licenses too
+        assertEquals( xml( sequential ), xml( parallel ) );
+        assertEquals( 8, parallel.getLicenseMissing().size() );
+        assertEquals( 14, parallel.getDislikedArtifacts().size() );
+        int found = 0;
+        for ( ArtifactWithLicenses artifact : parallel.getLicensedArtifacts() )
+        {
+            if ( artifact.getArtifactId().equals( duplicate ) )
+            {
+                assertEquals( "Dependency 1", artifact.getName() );
+                assertEquals( Sets.newHashSet( "Apache-2.0", "MIT License" ), artifact.getLicenses() );
+                found++;
+            }
+        }
+        assertEquals( 1, found );
+    }
+
+    private String xml( LicensingReport report ) throws Exception
+    {
+        File file = temporaryFolder.newFile();
+        report.writeReport( file );
+        return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+    }
+
     private static License prepareLisence( String anotherMitLicense )
     {
         License license = new License();
@@ -0,0 +1,45 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+public class CombineReportsTest extends AbstractLicensingTest {
+
+	/**
+	 * An artifact found in several module reports gets the licenses of all of
+	 * them, without changing the module reports.
+	 */
+	@Test
+	public void testLicensesOfDuplicatesAreJoined() {
+		ArtifactWithLicenses first = artifact("group:a:jar:1.0", "A", "MIT");
+		ArtifactWithLicenses second = artifact("group:a:jar:1.0", "A again", "Apache-2.0");
+
+		LicensingReport module1 = new LicensingReport();
+		module1.addLicensedArtifact(first);
+		LicensingReport module2 = new LicensingReport();
+		module2.addLicensedArtifact(second);
+		module2.addDislikedArtifact(artifact("group:b:jar:1.0", "B", "GPL-3.0"));
+		module2.addMissingLicense(new ArtifactWithLicenses("group:c:jar:1.0"));
+
+		LicensingReport combined = new LicensingReport();
+		combined.combineWith(module1);
+		combined.combineWith(module2);
+		combined.combineWith(module2);
+
+		assertEquals(1, combined.getLicensedArtifacts().size());
+		ArtifactWithLicenses merged = combined.getLicensedArtifacts().iterator().next();
+		assertEquals("A", merged.getName());
+		assertEquals(new HashSet<String>(Arrays.asList("MIT", "Apache-2.0")), merged.getLicenses());
+		assertEquals(new HashSet<String>(Arrays.asList("MIT")), first.getLicenses());
+		assertEquals(new HashSet<String>(Arrays.asList("MIT", "Apache-2.0")), combined.groupByLicense().getMultiLicensed().get("A"));
+
+		assertEquals(1, combined.getDislikedArtifacts().size());
+		assertEquals(1, combined.getLicenseMissing().size());
+	}
+}
@@ -0,0 +1,63 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.ConcurrentLicensingReport;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+public class ConcurrentLicensingReportTest {
+
+	@Test
+	public void testAddingFromManyThreads() throws Exception {
+		final ConcurrentLicensingReport accumulator = new ConcurrentLicensingReport();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> adding = new ArrayList<Future<?>>();
+			for (int t = 0; t < 8; t++) {
+				final int thread = t;
+				adding.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < 1000; i++) {
+							accumulator.addLicensedArtifact(artifact("group:artifact" + i + ":jar:1.0", "License " + thread));
+						}
+						accumulator.addMissingLicense(new ArtifactWithLicenses("group:missing:jar:1.0"));
+						accumulator.addDislikedArtifact(artifact("group:disliked" + thread + ":jar:1.0", "GPL"));
+					}
+				}));
+			}
+			for (Future<?> future : adding) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		LicensingReport report = accumulator.freeze();
+
+		assertEquals(1000, report.getLicensedArtifacts().size());
+		for (ArtifactWithLicenses artifact : report.getLicensedArtifacts()) {
+			assertEquals(8, artifact.getLicenses().size());
+		}
+		assertEquals(1, report.getLicenseMissing().size());
+		assertEquals(8, report.getDislikedArtifacts().size());
+		assertEquals(new HashSet<String>(Arrays.asList("GPL")), report.getDislikedArtifacts().iterator().next().getLicenses());
+	}
+
+	private static ArtifactWithLicenses artifact(String id, String license) {
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses(id);
+		artifact.addLicense(license);
+		return artifact;
+	}
+}
@@ -1,15 +1,23 @@
 package org.linuxstuff.mojo.licensing;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.maven.model.License;
 import org.apache.maven.project.MavenProject;
 import org.junit.Test;
 import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.CoalescedLicense;
+import org.linuxstuff.mojo.licensing.model.LicenseTable;
+import org.linuxstuff.mojo.licensing.model.LicenseVerdict;
+import org.linuxstuff.mojo.licensing.model.LicensingRequirements;
 
 /**
  * Don't worry test, we like you.
@@ -128,4 +136,63 @@ public class DislikedTest extends AbstractLicensingTest {
 
 	}
 
+	/**
+	 * License names are judged once per policy, so changing the requirements
+	 * must not leave stale verdicts behind.
+	 */
+	@Test
+	public void testVerdictFollowsRequirementChanges() {
+		licensingRequirements.addDislikedLicense("disliked");
+
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(Collections.singleton("disliked"), false));
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(Collections.singleton("disliked"), true));
+		assertEquals(LicenseVerdict.MISSING, licensingRequirements.getVerdict(Collections.<String> emptySet(), false));
+
+		licensingRequirements.addLikedLicense("disliked");
+
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(Collections.singleton("disliked"), false));
+	}
+
+	/**
+	 * Any spelling of a coalesced license gets the verdict of its final name,
+	 * the same as {@code isAcceptableLicenseName} gives it.
+	 */
+	@Test
+	public void testCoalescedNamesGetTheVerdictOfTheFinalName() {
+		licensingRequirements.addLikedLicense("MIT License");
+		licensingRequirements.addCoalescedLicense(new CoalescedLicense("MIT License", Collections.singleton("The MIT License")));
+
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(Collections.singleton("the mit license"), false));
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(Collections.singleton("The MIT License"), false));
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(Collections.singleton("MIT"), false));
+		assertTrue(licensingRequirements.isAcceptableLicenseName("the mit license"));
+
+		licensingRequirements = new LicensingRequirements();
+		licensingRequirements.addDislikedLicense("GPL-3.0");
+		licensingRequirements.addCoalescedLicense(new CoalescedLicense("GPL-3.0", Collections.singleton("GNU GPL v3")));
+
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(Collections.singleton("GNU GPL v3"), false));
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(new HashSet<String>(Arrays.asList("GNU GPL v3", "MIT")), false));
+	}
+
+	/**
+	 * A new build session gets its own license table; sets interned by the
+	 * previous one are still judged right, as are plain sets.
+	 */
+	@Test
+	public void testVerdictAcrossSessions() {
+		licensingRequirements.addDislikedLicense("GPL-3.0");
+		ArtifactWithLicenses earlier = new ArtifactWithLicenses("artifact", new HashSet<String>(Arrays.asList("GPL-3.0")));
+
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(earlier.getLicenses(), false));
+
+		LicenseTable.enterSession(new Object());
+		ArtifactWithLicenses later = new ArtifactWithLicenses("artifact", new HashSet<String>(Arrays.asList("MIT", "GPL-3.0")));
+
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(earlier.getLicenses(), false));
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(later.getLicenses(), false));
+		assertEquals(LicenseVerdict.DISLIKED, licensingRequirements.getVerdict(Collections.singleton("GPL-3.0"), false));
+		assertEquals(LicenseVerdict.LIKED, licensingRequirements.getVerdict(new HashSet<String>(Arrays.asList("GPL-3.0", "MIT")), false));
+	}
+
 }
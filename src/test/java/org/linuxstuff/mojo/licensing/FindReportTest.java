@@ -0,0 +1,70 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FindReportTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testReportMatchingCompressReportsIsPreferred() throws Exception {
+		File plain = temporaryFolder.newFile("report.xml");
+		File compressed = temporaryFolder.newFile("report.xml.gz");
+		Log log = mock(Log.class);
+		mojo.setLog(log);
+		String directory = temporaryFolder.getRoot().getPath();
+
+		mojo.compressReports = true;
+		assertEquals(compressed, mojo.findReport(directory, "report.xml"));
+		mojo.compressReports = false;
+		assertEquals(plain, mojo.findReport(directory, "report.xml"));
+
+		// both exist, so one of them is stale
+		verify(log, times(2)).warn(anyString());
+	}
+
+	@Test
+	public void testOtherReportIsUsedWithoutWarning() throws Exception {
+		File plain = temporaryFolder.newFile("report.xml");
+		Log log = mock(Log.class);
+		mojo.setLog(log);
+		String directory = temporaryFolder.getRoot().getPath();
+
+		mojo.compressReports = true;
+		assertEquals(plain, mojo.findReport(directory, "report.xml"));
+		assertEquals(new File(directory, "missing.xml.gz"), mojo.findReport(directory, "missing.xml"));
+
+		verify(log, never()).warn(anyString());
+	}
+
+	@Test
+	public void testReportOfOtherFormatIsFound() throws Exception {
+		File json = temporaryFolder.newFile("report.ndjson");
+		Log log = mock(Log.class);
+		mojo.setLog(log);
+		String directory = temporaryFolder.getRoot().getPath();
+
+		assertEquals(json, mojo.findReport(directory, "report.xml"));
+		verify(log, never()).warn(anyString());
+
+		// an XML report next to it is stale, or the NDJSON one is
+		File xml = temporaryFolder.newFile("report.xml");
+		assertEquals(xml, mojo.findReport(directory, "report.xml"));
+		mojo.reportFormat = "ndjson";
+		assertEquals(json, mojo.findReport(directory, "report.xml"));
+		verify(log, times(2)).warn(anyString());
+	}
+}
@@ -0,0 +1,78 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.codehaus.plexus.resource.ResourceManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.NormalizedTextDigest;
+
+public class FullLicenseTextTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Two license names whose resources have the same text get one copy of
+	 * it, the second refers back to the first.
+	 */
+	@Test
+	public void testIdenticalTextsAreWrittenOnce() throws Exception {
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("Apache License 2.0")).thenReturn(resource("apache.txt", "The Apache text"));
+		when(locator.getResourceAsFile("Apache-2.0")).thenReturn(resource("apache-2.0.txt", "The Apache text"));
+		when(locator.getResourceAsFile("MIT")).thenReturn(resource("mit.txt", "The MIT text"));
+
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "Apache License 2.0"));
+		report.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "Apache-2.0"));
+		report.addLicensedArtifact(artifact("group:c:jar:1.0", "C", "MIT"));
+
+		File file = temporaryFolder.newFile("LICENSES.txt");
+		report.writeTextReport(file, locator, null, null, false, true);
+		String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+		assertEquals(text.indexOf("The Apache text"), text.lastIndexOf("The Apache text"));
+		assertTrue(text.indexOf("Same text as Apache License 2.0 above.") > text.indexOf("The Apache text"));
+		assertTrue(text.contains("The MIT text"));
+	}
+
+	/**
+	 * The digest computed while writing, license texts copied from their files
+	 * included, is the digest of the file written.
+	 */
+	@Test
+	public void testDigestWhileWritingMatchesWrittenFile() throws Exception {
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("prepend")).thenReturn(resource("prepend.txt", "Before\r\n"));
+		when(locator.getResourceAsFile("Apache-2.0")).thenReturn(resource("apache-2.0.txt", "The Apache text\r\n"));
+		when(locator.getResourceAsFile("MIT")).thenReturn(resource("mit.txt", "The MIT text"));
+
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "Apache-2.0"));
+		report.addLicensedArtifact(artifact("group:c:jar:1.0", "C", "MIT"));
+
+		File file = temporaryFolder.newFile("LICENSES.txt");
+		byte[] digest = report.writeDigestedTextReport(file, locator, new TextResourceCache(), report.groupByLicense(), null, "prepend", null,
+				true, true);
+
+		assertTrue(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).contains("The MIT text"));
+		assertArrayEquals(NormalizedTextDigest.of(file), digest);
+	}
+
+	private File resource(String name, String content) throws Exception {
+		File file = temporaryFolder.newFile(name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
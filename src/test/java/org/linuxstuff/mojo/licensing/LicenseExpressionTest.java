@@ -0,0 +1,132 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.maven.model.License;
+import org.junit.Test;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.CoalescedLicense;
+import org.linuxstuff.mojo.licensing.model.LicenseExpression;
+import org.linuxstuff.mojo.licensing.model.LicensingRequirements;
+
+public class LicenseExpressionTest extends AbstractLicensingTest {
+
+	/**
+	 * Lower case "and"/"with" are part of ordinary license names and must not
+	 * be read as operators.
+	 */
+	@Test
+	public void testPlainNamesAreNotExpressions() {
+		assertFalse(LicenseExpression.parse("GNU General Public License, version 2 with the Classpath Exception").isCompound());
+		assertFalse(LicenseExpression.parse("Common Development and Distribution License (CDDL) v1.0").isCompound());
+		assertTrue(LicenseExpression.parse("Apache-2.0 OR MIT").isCompound());
+	}
+
+	@Test
+	public void testExpressionsAreParsedOnce() {
+		assertSame(licensingRequirements.getLicenseExpression("Apache-2.0 OR MIT"), licensingRequirements.getLicenseExpression("Apache-2.0 OR MIT"));
+	}
+
+	/**
+	 * One liked alternative is enough for {@code OR}, every operand must be
+	 * liked for {@code AND}.
+	 */
+	@Test
+	public void testOrAndWithLikedLicenses() {
+		licensingRequirements.addLikedLicense("MIT");
+
+		assertTrue(licensingRequirements.isAcceptableLicense("Apache-2.0 OR MIT"));
+		assertFalse(licensingRequirements.isAcceptableLicense("Apache-2.0 AND MIT"));
+		assertTrue(licensingRequirements.isAcceptableLicense("(GPL-2.0-only AND Apache-2.0) OR MIT"));
+		assertFalse(licensingRequirements.isAcceptableLicense("(GPL-2.0-only OR Apache-2.0) AND MIT"));
+
+		licensingRequirements.addLikedLicense("Apache-2.0");
+		assertTrue(licensingRequirements.isAcceptableLicense("Apache-2.0 AND MIT"));
+	}
+
+	@Test
+	public void testWithException() {
+		licensingRequirements.addDislikedLicense("GPL-2.0-only");
+
+		assertFalse(licensingRequirements.isAcceptableLicense("GPL-2.0-only WITH Classpath-exception-2.0"));
+
+		licensingRequirements = new LicensingRequirements();
+		licensingRequirements.addLikedLicense("GPL-2.0-only WITH Classpath-exception-2.0");
+
+		assertTrue(licensingRequirements.isAcceptableLicense("GPL-2.0-only WITH Classpath-exception-2.0"));
+		assertFalse(licensingRequirements.isAcceptableLicense("GPL-2.0-only"));
+	}
+
+	/**
+	 * The full name decides when the requirements mention it, the bare
+	 * license otherwise, with liked licenses and with only disliked ones.
+	 */
+	@Test
+	public void testFullExceptionNameDecides() {
+		String expression = "GPL-2.0-only WITH Classpath-exception-2.0";
+
+		licensingRequirements.addLikedLicense(expression);
+		licensingRequirements.addDislikedLicense("GPL-2.0-only");
+		assertTrue(licensingRequirements.isAcceptableLicense(expression));
+
+		licensingRequirements = new LicensingRequirements();
+		licensingRequirements.addLikedLicense("GPL-2.0-only");
+		assertTrue(licensingRequirements.isAcceptableLicense(expression));
+		licensingRequirements.addDislikedLicense(expression);
+		assertFalse(licensingRequirements.isAcceptableLicense(expression));
+
+		licensingRequirements = new LicensingRequirements();
+		licensingRequirements.addDislikedLicense(expression);
+		assertFalse(licensingRequirements.isAcceptableLicense(expression));
+		assertTrue(licensingRequirements.isAcceptableLicense("GPL-2.0-only"));
+
+		licensingRequirements = new LicensingRequirements();
+		licensingRequirements.addDislikedLicense("GPL-2.0-only");
+		assertFalse(licensingRequirements.isAcceptableLicense(expression));
+		assertTrue(licensingRequirements.isAcceptableLicense("GPL-2.0 WITH Classpath-exception-2.0"));
+		licensingRequirements.addCoalescedLicense(new CoalescedLicense("GPL-2.0-only", Collections.singleton("GPL-2.0")));
+		assertFalse(licensingRequirements.isAcceptableLicense("GPL-2.0 WITH Classpath-exception-2.0"));
+	}
+
+	/**
+	 * A POM declaring an SPDX expression is disliked only if the expression
+	 * as a whole is.
+	 */
+	@Test
+	public void testExpressionInPom() {
+		licensingRequirements.addDislikedLicense("GPL-3.0-only");
+
+		License license = new License();
+		license.setName("GPL-3.0-only AND MIT");
+		mavenProject.getLicenses().add(license);
+
+		assertTrue(mojo.isDisliked(mavenProject));
+
+		license.setName("GPL-3.0-only OR MIT");
+
+		assertFalse(mojo.isDisliked(mavenProject));
+	}
+
+	/**
+	 * {@code OR} is split like a dual license, anything else is kept whole.
+	 */
+	@Test
+	public void testNormalizeSplitsAlternatives() {
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses("artifact");
+		artifact.addLicense("Apache-2.0 OR (MIT AND BSD-3-Clause)");
+
+		licensingRequirements.normalizeLicenses(artifact);
+
+		Set<String> expected = new HashSet<String>();
+		expected.add("Apache-2.0");
+		expected.add("MIT AND BSD-3-Clause");
+		assertEquals(expected, artifact.getLicenses());
+	}
+}
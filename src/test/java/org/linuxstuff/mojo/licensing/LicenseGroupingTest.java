@@ -0,0 +1,71 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicenseGrouping;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+public class LicenseGroupingTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Artifacts added after the grouping was built show up in it.
+	 */
+	@Test
+	public void testGroupingFollowsAddedArtifacts() {
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "LGPL-2.1"));
+
+		LicenseGrouping grouping = report.groupByLicense();
+		assertEquals(new TreeSet<String>(Arrays.asList("A")), grouping.getArtifactsUnder("LGPL-2.1"));
+		assertTrue(grouping.getMultiLicensed().isEmpty());
+
+		LicensingReport other = new LicensingReport();
+		other.addLicensedArtifact(artifact("group:b:jar:1.0", "b", "LGPL-2.1", "MIT"));
+		report.combineWith(other);
+
+		assertSame(grouping, report.groupByLicense());
+		assertEquals(Arrays.asList("A", "b"), Arrays.asList(grouping.getArtifactsUnder("LGPL-2.1").toArray()));
+		assertEquals(new TreeSet<String>(Arrays.asList("LGPL-2.1", "MIT")), grouping.getMultiLicensed().get("b"));
+		assertTrue(grouping.getArtifactsUnder("EPL-1.0").isEmpty());
+	}
+
+	/**
+	 * A report read back, by XStream or from NDJSON, comes with its grouping,
+	 * and its sections cannot be changed behind the grouping's back.
+	 */
+	@Test
+	public void testReadReportIsGrouped() throws Exception {
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "LGPL-2.1"));
+		report.addLicensedArtifact(artifact("group:nameless:jar:1.0", null, "MIT"));
+
+		for (ReportFormat format : ReportFormat.values()) {
+			File file = temporaryFolder.newFile();
+			report.writeReport(file, format);
+			LicensingReport read = LicensingReport.readReport(file);
+
+			assertEquals(new TreeSet<String>(Arrays.asList("A")), read.groupByLicense().getArtifactsUnder("LGPL-2.1"));
+			assertEquals(new TreeSet<String>(Arrays.asList("group:nameless:jar:1.0")), read.groupByLicense().getArtifactsUnder("MIT"));
+			try {
+				read.getLicensedArtifacts().add(artifact("group:b:jar:1.0", "B", "EPL-1.0"));
+				fail();
+			} catch (UnsupportedOperationException e) {
+				assertTrue(read.groupByLicense().getArtifactsUnder("EPL-1.0").isEmpty());
+			}
+		}
+	}
+}
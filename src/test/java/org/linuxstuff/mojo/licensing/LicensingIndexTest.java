@@ -0,0 +1,70 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingIndex;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+public class LicensingIndexTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testLookupsSurviveWritingAndReading() throws Exception {
+		LicensingReport web = new LicensingReport();
+		web.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "EPL-1.0"));
+		web.addLicensedArtifact(artifact("group:odd:jar:1.0", "Odd", "Tab\tand \\ backslash"));
+		web.addMissingLicense(artifact("group:missing:jar:1.0", null));
+
+		LicensingReport core = new LicensingReport();
+		core.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "MIT"));
+		core.addLicensedArtifact(artifact("group:shared:jar:2.0", "Shared", "EPL-1.0"));
+		core.addDislikedArtifact(artifact("group:sharedish:jar:1.0", "Not shared", "GPL-3.0"));
+
+		LicensingIndex built = new LicensingIndex();
+		built.addModule("group:web:war:1.0", web);
+		built.addModule("group:core:jar:1.0", core);
+		built.addModule("group:empty:pom:1.0", new LicensingReport());
+
+		File file = new File(temporaryFolder.getRoot(), "aggregated.xml.index");
+		built.write(file);
+		LicensingIndex index = LicensingIndex.read(file);
+
+		assertEquals(Arrays.asList("group:shared:jar:1.0", "group:shared:jar:2.0"), list(index.findArtifacts("group:shared")));
+		assertEquals(Arrays.asList("group:shared:jar:1.0"), list(index.findArtifacts("group:shared:jar:1.0")));
+		assertEquals(Arrays.asList("group:core:jar:1.0", "group:web:war:1.0"), list(index.getModulesUsing("group:shared:jar:1.0")));
+		assertEquals(Arrays.asList("EPL-1.0", "MIT"), list(index.getLicenses("group:shared:jar:1.0")));
+		assertEquals(Arrays.asList("group:shared:jar:1.0", "group:shared:jar:2.0"), list(index.getArtifactsUnder("EPL-1.0")));
+		assertEquals(Arrays.asList("group:odd:jar:1.0"), list(index.getArtifactsUnder("Tab\tand \\ backslash")));
+		assertEquals(Arrays.asList("group:missing:jar:1.0", "group:odd:jar:1.0", "group:shared:jar:1.0"), list(index.getArtifactsOf("group:web:war:1.0")));
+		assertTrue(index.getArtifactsOf("group:empty:pom:1.0").isEmpty());
+		assertTrue(index.getModules().contains("group:empty:pom:1.0"));
+
+		assertEquals("license-missing", index.getSection("group:missing:jar:1.0"));
+		assertEquals("disliked-artifacts", index.getSection("group:sharedish:jar:1.0"));
+		assertNull(index.getSection("group:unknown:jar:1.0"));
+
+		// reading and writing again gives the same file
+		File again = new File(temporaryFolder.getRoot(), "again.index");
+		index.write(again);
+		assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+				new String(Files.readAllBytes(again.toPath()), StandardCharsets.UTF_8));
+	}
+
+	private static List<String> list(SortedSet<String> values) {
+		return Arrays.asList(values.toArray(new String[values.size()]));
+	}
+}
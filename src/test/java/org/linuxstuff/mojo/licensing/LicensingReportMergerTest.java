@@ -0,0 +1,99 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.LicensingReportMerger;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+public class LicensingReportMergerTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Merging the files gives the same report as combining them in memory,
+	 * whatever format the files are in. Licenses of an artifact found in
+	 * several files are joined.
+	 */
+	@Test
+	public void testMergeMatchesCombinedReport() throws Exception {
+		LicensingReport first = new LicensingReport();
+		first.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "MIT"));
+		first.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "MIT"));
+		first.addMissingLicense(artifact("group:missing:jar:1.0", null));
+
+		LicensingReport second = new LicensingReport();
+		second.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "EPL-1.0"));
+		second.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared again", "Apache-2.0"));
+		second.addDislikedArtifact(artifact("group:disliked:jar:1.0", "Disliked", "GPL-3.0"));
+		second.addMissingLicense(artifact("group:missing:jar:1.0", null));
+
+		LicensingReport third = new LicensingReport();
+
+		File firstFile = new File(temporaryFolder.getRoot(), "first.xml");
+		first.writeReport(firstFile);
+		File secondFile = new File(temporaryFolder.getRoot(), "second.ndjson.gz");
+		second.writeReport(secondFile, ReportFormat.NDJSON, true);
+		File thirdFile = new File(temporaryFolder.getRoot(), "third.xml");
+		third.writeReport(thirdFile);
+
+		File merged = new File(temporaryFolder.getRoot(), "merged.xml");
+		new LicensingReportMerger(Arrays.asList(firstFile, secondFile, thirdFile)).writeReport(merged, ReportFormat.XML, false);
+
+		LicensingReport expected = new LicensingReport();
+		expected.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "EPL-1.0"));
+		expected.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "MIT"));
+		expected.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "MIT", "Apache-2.0"));
+		expected.addMissingLicense(artifact("group:missing:jar:1.0", null));
+		expected.addDislikedArtifact(artifact("group:disliked:jar:1.0", "Disliked", "GPL-3.0"));
+		File expectedFile = new File(temporaryFolder.getRoot(), "expected.xml");
+		expected.writeReport(expectedFile);
+
+		assertEquals(new String(Files.readAllBytes(expectedFile.toPath()), StandardCharsets.UTF_8),
+				new String(Files.readAllBytes(merged.toPath()), StandardCharsets.UTF_8));
+
+		// the same merge again leaves the file alone
+		assertTrue(merged.setLastModified(1000L));
+		new LicensingReportMerger(Arrays.asList(firstFile, secondFile, thirdFile)).writeReport(merged, ReportFormat.XML, false);
+		assertEquals(1000L, merged.lastModified());
+		assertArrayEquals(new String[] { "expected.xml", "first.xml", "merged.xml", "second.ndjson.gz", "third.xml" }, sortedNames());
+	}
+
+	@Test
+	public void testUnsortedReportIsRejected() throws Exception {
+		File unsorted = new File(temporaryFolder.getRoot(), "unsorted.xml");
+		try (OutputStream out = new FileOutputStream(unsorted)) {
+			out.write(("<licensing disliked-licenses=\"0\" missing-licenses=\"0\" licensing-check=\"true\"><artifacts>"
+					+ "<artifact id=\"group:b:jar:1.0\" /><artifact id=\"group:a:jar:1.0\" />"
+					+ "</artifacts><license-missing /><disliked-artifacts /></licensing>").getBytes(StandardCharsets.UTF_8));
+		}
+
+		try {
+			new LicensingReportMerger(Arrays.asList(unsorted)).writeReport(new File(temporaryFolder.getRoot(), "merged.xml"), ReportFormat.XML, false);
+			fail();
+		} catch (MojoExecutionException e) {
+			assertTrue(e.getCause().getMessage().contains("not sorted"));
+		}
+	}
+
+	private String[] sortedNames() {
+		String[] names = temporaryFolder.getRoot().list();
+		Arrays.sort(names);
+		return names;
+	}
+}
@@ -0,0 +1,199 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.collections.CollectionConverter;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+public class LicensingReportWriterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Consumers parse the report with XStream, so the streamed XML must read
+	 * back into the same report.
+	 */
+	@Test
+	public void testWrittenReportReadsBackWithXStream() throws Exception {
+		LicensingReport report = sampleReport();
+
+		File file = new File(temporaryFolder.getRoot(), "report.xml");
+		report.writeReport(file);
+
+		XStream xstream = new XStream(new StaxDriver());
+		xstream.processAnnotations(LicensingReport.class);
+		xstream.processAnnotations(ArtifactWithLicenses.class);
+		LicensingReport read = (LicensingReport) xstream.fromXML(file);
+
+		assertEquals(report.getLicensedArtifacts(), read.getLicensedArtifacts());
+		assertEquals(report.getDislikedArtifacts(), read.getDislikedArtifacts());
+		assertTrue(read.getLicenseMissing().isEmpty());
+
+		// the read sections take further artifacts like a new report's
+		read.addMissingLicense(new ArtifactWithLicenses("group:late:jar:1.0"));
+		read.combineWith(report);
+		assertEquals(1, read.getLicenseMissing().size());
+		assertEquals(report.getLicensedArtifacts(), read.getLicensedArtifacts());
+		for (ArtifactWithLicenses artifact : read.getLicensedArtifacts()) {
+			if (artifact.getArtifactId().equals("group:licensed:jar:1.0")) {
+				assertEquals("Escaped <&> \"name\"", artifact.getName());
+				assertEquals(2, artifact.getLicenses().size());
+				// read licenses are swapped for the shared set once read
+				assertSame(new ArtifactWithLicenses("other", new HashSet<String>(artifact.getLicenses())).getLicenses(), artifact.getLicenses());
+			}
+		}
+	}
+
+	/**
+	 * The streamed XML is byte for byte what XStream writes for the annotated
+	 * model, declaration included, once the sections are in artifact id
+	 * order.
+	 */
+	@Test
+	public void testWrittenReportMatchesXStream() throws Exception {
+		assertSameAsXStream(sampleReport());
+		assertSameAsXStream(new LicensingReport());
+	}
+
+	/**
+	 * An NDJSON report does not end up in a {@code .xml} file by default.
+	 */
+	@Test
+	public void testFilenameFollowsFormat() {
+		assertEquals("third-party-licensing.ndjson", ReportFormat.NDJSON.toFilename("third-party-licensing.xml"));
+		assertEquals("third-party-licensing.xml", ReportFormat.XML.toFilename("third-party-licensing.ndjson"));
+		assertEquals("third-party-licensing.xml", ReportFormat.XML.toFilename("third-party-licensing.xml"));
+		assertEquals("licensing.txt", ReportFormat.NDJSON.toFilename("licensing.txt"));
+	}
+
+	@Test
+	public void testArtifactsAndLicensesAreSorted() throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "report.xml");
+		sampleReport().writeReport(file);
+
+		assertEquals("<?xml version='1.0' encoding='UTF-8'?>"
+				+ "<licensing disliked-licenses=\"1\" missing-licenses=\"0\" licensing-check=\"false\"><artifacts>"
+				+ "<artifact id=\"group:licensed:jar:1.0\" name=\"Escaped &lt;&amp;> &quot;name&quot;\"><license>Apache &amp; Friends</license><license>MIT</license></artifact>"
+				+ "<artifact id=\"group:nameless:jar:1.0\" /></artifacts><license-missing />"
+				+ "<disliked-artifacts><artifact id=\"group:disliked:jar:1.0\" name=\"Disliked\" /></disliked-artifacts></licensing>",
+				new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writing an unchanged report must leave the file alone.
+	 */
+	@Test
+	public void testUnchangedReportIsNotRewritten() throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "report.xml");
+		sampleReport().writeReport(file);
+		assertTrue(file.setLastModified(1000L));
+
+		sampleReport().writeReport(file);
+		assertEquals(1000L, file.lastModified());
+
+		new LicensingReport().writeReport(file);
+		assertTrue(file.lastModified() != 1000L);
+	}
+
+	/**
+	 * NDJSON reports are one line per artifact and read back like XML ones.
+	 */
+	@Test
+	public void testJsonReportReadsBack() throws Exception {
+		LicensingReport report = sampleReport();
+		report.addMissingLicense(new ArtifactWithLicenses("group:missing:jar:1.0"));
+
+		File file = new File(temporaryFolder.getRoot(), "report.ndjson");
+		report.writeReport(file, ReportFormat.NDJSON);
+
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals("{\"licensing-check\":false,\"disliked-licenses\":1,\"missing-licenses\":1}", lines.get(0));
+		assertEquals("{\"section\":\"artifacts\",\"id\":\"group:licensed:jar:1.0\",\"name\":\"Escaped <&> \\\"name\\\"\",\"licenses\":[\"Apache & Friends\",\"MIT\"]}",
+				lines.get(1));
+		assertEquals(5, lines.size());
+
+		LicensingReport read = LicensingReport.readReport(file);
+		assertEquals(report.getLicensedArtifacts(), read.getLicensedArtifacts());
+		assertEquals(report.getLicenseMissing(), read.getLicenseMissing());
+		assertEquals(report.getDislikedArtifacts(), read.getDislikedArtifacts());
+
+		File xml = new File(temporaryFolder.getRoot(), "report.xml");
+		read.writeReport(xml);
+		assertEquals(report.getLicensedArtifacts(), LicensingReport.readReport(xml).getLicensedArtifacts());
+	}
+
+	@Test
+	public void testCompressedReportsReadBack() throws Exception {
+		LicensingReport report = sampleReport();
+
+		for (ReportFormat format : ReportFormat.values()) {
+			File file = new File(temporaryFolder.getRoot(), "report." + format + ".gz");
+			report.writeReport(file, format, true);
+
+			assertEquals(report.getLicensedArtifacts(), LicensingReport.readReport(file).getLicensedArtifacts());
+		}
+	}
+
+	private void assertSameAsXStream(LicensingReport report) throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "report.xml");
+		report.writeReport(file);
+
+		XStream xstream = new XStream(new StaxDriver());
+		xstream.setMode(XStream.NO_REFERENCES);
+		xstream.processAnnotations(LicensingReport.class);
+		xstream.processAnnotations(ArtifactWithLicenses.class);
+		// the sections go out as plain sets, sorted the way they are streamed
+		Class<?> section = Class.forName("org.linuxstuff.mojo.licensing.model.ArtifactSet");
+		xstream.addDefaultImplementation(section, Set.class);
+		xstream.registerConverter(new CollectionConverter(xstream.getMapper(), section) {
+			@Override
+			@SuppressWarnings("unchecked")
+			public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+				List<ArtifactWithLicenses> sorted = new ArrayList<ArtifactWithLicenses>((Set<ArtifactWithLicenses>) source);
+				Collections.sort(sorted, ArtifactWithLicenses.BY_ARTIFACT_ID);
+				super.marshal(sorted, writer, context);
+			}
+		});
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		xstream.toXML(report, expected);
+
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+	}
+
+	private static LicensingReport sampleReport() {
+		LicensingReport report = new LicensingReport();
+
+		report.addLicensedArtifact(new ArtifactWithLicenses("group:nameless:jar:1.0"));
+		ArtifactWithLicenses licensed = new ArtifactWithLicenses("group:licensed:jar:1.0", "Escaped <&> \"name\"");
+		licensed.addLicense("MIT");
+		licensed.addLicense("Apache & Friends");
+		report.addLicensedArtifact(licensed);
+		report.addDislikedArtifact(new ArtifactWithLicenses("group:disliked:jar:1.0", "Disliked"));
+
+		return report;
+	}
+}
@@ -0,0 +1,77 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+import org.linuxstuff.mojo.licensing.model.ArtifactWithLicenses;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+
+public class ParallelReportsTest {
+
+	/**
+	 * An artifact in several reports keeps the entry of the first report, just
+	 * like combining them one after the other.
+	 */
+	@Test
+	public void testSameResultAsCombiningInOrder() throws Exception {
+		List<Callable<LicensingReport>> reports = new ArrayList<Callable<LicensingReport>>();
+		LicensingReport sequential = new LicensingReport();
+		for (int i = 0; i < 25; i++) {
+			final LicensingReport module = new LicensingReport();
+			module.addLicensedArtifact(artifact("group:module" + i + ":jar:1.0", "Module " + i));
+			module.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared from " + i));
+			if (i % 5 == 0) {
+				module.addDislikedArtifact(artifact("group:disliked" + i + ":jar:1.0", null));
+			}
+			sequential.combineWith(module);
+			reports.add(new Callable<LicensingReport>() {
+				@Override
+				public LicensingReport call() {
+					return module;
+				}
+			});
+		}
+
+		LicensingReport combined = ParallelReports.combine(reports, 4);
+
+		assertEquals(sequential.getLicensedArtifacts(), combined.getLicensedArtifacts());
+		assertEquals(sequential.getDislikedArtifacts(), combined.getDislikedArtifacts());
+		for (ArtifactWithLicenses artifact : combined.getLicensedArtifacts()) {
+			if (artifact.getArtifactId().equals("group:shared:jar:1.0")) {
+				assertEquals("Shared from 0", artifact.getName());
+			}
+		}
+	}
+
+	@Test
+	public void testFailureIsPassedOn() {
+		final MojoExecutionException failure = new MojoExecutionException("Could not read report");
+		Callable<LicensingReport> failing = new Callable<LicensingReport>() {
+			@Override
+			public LicensingReport call() throws MojoExecutionException {
+				throw failure;
+			}
+		};
+
+		try {
+			ParallelReports.combine(Collections.nCopies(3, failing), 2);
+			fail();
+		} catch (MojoExecutionException e) {
+			assertSame(failure, e);
+		}
+	}
+
+	private ArtifactWithLicenses artifact(String id, String name) {
+		ArtifactWithLicenses artifact = new ArtifactWithLicenses(id, name);
+		artifact.addLicense("MIT");
+		return artifact;
+	}
+}
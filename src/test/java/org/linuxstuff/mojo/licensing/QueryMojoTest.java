@@ -0,0 +1,134 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.mockito.InOrder;
+
+public class QueryMojoTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * The index built while streaming the module reports together is the one
+	 * built from the reports read into memory, and answers queries.
+	 */
+	@Test
+	public void testQueryIndexOfStreamingMerge() throws Exception {
+		List<MavenProject> modules = new ArrayList<MavenProject>();
+
+		LicensingReport first = new LicensingReport();
+		first.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "MIT"));
+		first.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "Apache-2.0"));
+		first.addMissingLicense(artifact("group:unknown:jar:1.0", "Unknown"));
+		modules.add(module("first", first));
+
+		LicensingReport second = new LicensingReport();
+		second.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "Apache-2.0"));
+		second.addDislikedArtifact(artifact("group:gpl:jar:1.0", "GPL", "GPL-3.0"));
+		modules.add(module("second", second));
+
+		String inMemory = collect(modules, false);
+		String streamed = collect(modules, true);
+		assertEquals(inMemory, streamed);
+
+		Log log = mock(Log.class);
+		QueryMojo query = new QueryMojo();
+		query.project = modules.get(0);
+		query.aggregatedThirdPartyLicensingFilename = "aggregated.xml";
+		query.setLog(log);
+		query.artifact = "group:shared";
+		query.license = "Apache-2.0";
+		query.module = "group:second:jar:1.0";
+		query.execute();
+
+		InOrder lines = inOrder(log);
+		lines.verify(log).info("group:shared:jar:1.0 (artifacts) [Apache-2.0, MIT]");
+		lines.verify(log).info("  group:first:jar:1.0");
+		lines.verify(log).info("  group:second:jar:1.0");
+		lines.verify(log).info("Under Apache-2.0:");
+		lines.verify(log).info("  group:a:jar:1.0");
+		lines.verify(log).info("  group:shared:jar:1.0");
+		lines.verify(log).info("Used by group:second:jar:1.0:");
+		lines.verify(log).info("  group:gpl:jar:1.0");
+		lines.verify(log).info("  group:shared:jar:1.0");
+		lines.verifyNoMoreInteractions();
+	}
+
+	/**
+	 * An index left behind by an earlier aggregation is not taken as up to
+	 * date when the aggregation in between did not write one.
+	 */
+	@Test
+	public void testIndexIsRewrittenAfterAggregationWithoutIt() throws Exception {
+		List<MavenProject> modules = new ArrayList<MavenProject>();
+
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "Apache-2.0"));
+		modules.add(module("first", report));
+		collect(modules, false, true, true);
+
+		report.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "MIT"));
+		report.writeReport(new File(modules.get(0).getBuild().getDirectory(), "licensing.xml"));
+		collect(modules, false, false, true);
+
+		String index = collect(modules, false, true, true);
+		assertTrue(index.contains("group:b:jar:1.0"));
+	}
+
+	private MavenProject module(String artifactId, LicensingReport report) throws Exception {
+		MavenProject module = new MavenProject();
+		module.setGroupId("group");
+		module.setArtifactId(artifactId);
+		module.setVersion("1.0");
+		File directory = temporaryFolder.newFolder(artifactId);
+		module.getBuild().setDirectory(directory.getPath());
+		report.writeReport(new File(directory, "licensing.xml"));
+		return module;
+	}
+
+	/**
+	 * Aggregate the module reports into the first module's build directory.
+	 *
+	 * @return the index written
+	 */
+	private String collect(List<MavenProject> modules, boolean streamingMerge) throws Exception {
+		return collect(modules, streamingMerge, true, false);
+	}
+
+	private String collect(List<MavenProject> modules, boolean streamingMerge, boolean writeIndex, boolean incremental) throws Exception {
+		CollectReportsMojo collect = new CollectReportsMojo();
+		collect.project = modules.get(0);
+		collect.reactorProjects = modules;
+		collect.projectHelper = mock(MavenProjectHelper.class);
+		collect.thirdPartyLicensingFilename = "licensing.xml";
+		collect.aggregatedThirdPartyLicensingFilename = "aggregated.xml";
+		collect.streamingMerge = streamingMerge;
+		collect.writeIndex = writeIndex;
+		collect.incrementalAggregation = incremental;
+		collect.threads = 2;
+		collect.setLog(mock(Log.class));
+		collect.execute();
+		return writeIndex ? read(collect.getIndexFile()) : null;
+	}
+
+	private static String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,78 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.LicensingReportMerger;
+import org.linuxstuff.mojo.licensing.model.ReportFormat;
+
+public class SpillingReportAggregatorTest extends AbstractLicensingTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Merging the spilled runs gives the same report as combining every module
+	 * report in memory.
+	 */
+	@Test
+	public void testSpilledRunsMergeToCombinedReport() throws Exception {
+		LicensingReport first = new LicensingReport();
+		first.addLicensedArtifact(artifact("group:b:jar:1.0", "B", "MIT"));
+		first.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared", "MIT"));
+
+		LicensingReport second = new LicensingReport();
+		second.addLicensedArtifact(artifact("group:shared:jar:1.0", "Shared again", "Apache-2.0"));
+		second.addMissingLicense(artifact("group:missing:jar:1.0", null));
+
+		LicensingReport third = new LicensingReport();
+		third.addDislikedArtifact(artifact("group:disliked:jar:1.0", "Disliked", "GPL-3.0"));
+
+		File runDirectory = new File(temporaryFolder.getRoot(), "runs");
+		SpillingReportAggregator aggregator = new SpillingReportAggregator(runDirectory, 2);
+		aggregator.add(first);
+		assertTrue(aggregator.hasSpilled());
+		aggregator.add(second);
+		aggregator.add(third);
+
+		List<File> runs = aggregator.finishRuns();
+		assertEquals(3, runs.size());
+		File merged = new File(temporaryFolder.getRoot(), "merged.xml");
+		new LicensingReportMerger(runs).writeReport(merged, ReportFormat.XML, false);
+
+		LicensingReport combined = new LicensingReport();
+		combined.combineWith(first);
+		combined.combineWith(second);
+		combined.combineWith(third);
+		File expected = new File(temporaryFolder.getRoot(), "expected.xml");
+		combined.writeReport(expected);
+
+		assertEquals(new String(Files.readAllBytes(expected.toPath()), StandardCharsets.UTF_8),
+				new String(Files.readAllBytes(merged.toPath()), StandardCharsets.UTF_8));
+
+		aggregator.deleteRuns();
+		assertFalse(runDirectory.exists());
+	}
+
+	@Test
+	public void testNothingSpilledWithinBudget() throws Exception {
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "MIT"));
+
+		SpillingReportAggregator aggregator = new SpillingReportAggregator(new File(temporaryFolder.getRoot(), "runs"), 0);
+		aggregator.add(report);
+
+		assertFalse(aggregator.hasSpilled());
+		assertEquals(1, aggregator.getReport().getLicensedArtifacts().size());
+	}
+}
@@ -0,0 +1,70 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.codehaus.plexus.resource.ResourceManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TextResourceCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Each session gets a cache of its own, so a later build does not see
+	 * what an earlier one located.
+	 */
+	@Test
+	public void testCachesAreScopedToTheSession() throws Exception {
+		Object session = new Object();
+		Object nextSession = new Object();
+
+		assertSame(TextResourceCache.forSession(session), TextResourceCache.forSession(session));
+		assertNotSame(TextResourceCache.forSession(session), TextResourceCache.forSession(nextSession));
+
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("MIT")).thenReturn(resource("mit.txt", "The MIT text"));
+
+		TextResourceCache.forSession(session).getText(locator, "MIT");
+		TextResourceCache.forSession(session).getText(locator, "MIT");
+		verify(locator, times(1)).getResourceAsFile("MIT");
+
+		TextResourceCache.forSession(nextSession).getText(locator, "MIT");
+		verify(locator, times(2)).getResourceAsFile("MIT");
+	}
+
+	/**
+	 * The same name may be a different resource to another locator.
+	 */
+	@Test
+	public void testEntriesAreKeptPerLocator() throws Exception {
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("LICENSE")).thenReturn(resource("first.txt", "First"));
+		ResourceManager otherLocator = mock(ResourceManager.class);
+		when(otherLocator.getResourceAsFile("LICENSE")).thenReturn(resource("second.txt", "Second"));
+
+		TextResourceCache texts = new TextResourceCache();
+		assertEquals("First", new String(texts.getText(locator, "LICENSE"), StandardCharsets.UTF_8));
+		assertEquals("Second", new String(texts.getText(otherLocator, "LICENSE"), StandardCharsets.UTF_8));
+		assertEquals("First", new String(texts.getText(locator, "LICENSE"), StandardCharsets.UTF_8));
+		verify(locator, times(1)).getResourceAsFile("LICENSE");
+	}
+
+	private File resource(String name, String content) throws Exception {
+		File file = temporaryFolder.newFile(name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
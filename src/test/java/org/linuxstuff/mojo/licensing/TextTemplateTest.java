@@ -0,0 +1,97 @@
+package org.linuxstuff.mojo.licensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.resource.ResourceManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.linuxstuff.mojo.licensing.model.LicensingReport;
+import org.linuxstuff.mojo.licensing.model.TextTemplate;
+
+public class TextTemplateTest extends AbstractLicensingTest {
+
+	private static final String EOL = System.getProperty("line.separator");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testReportFollowsTemplate() throws Exception {
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("template.properties")).thenReturn(resource("template.properties",
+				"header=# Third parties\\n\n"
+				+ "license=## ${license}\\n\n"
+				+ "artifact=* ${artifact}\\n\n"
+				+ "license.footer=\\n\n"
+				+ "multi.header=Several licenses:\\n\n"
+				+ "multi.artifact=${artifact}:\n"
+				+ "multi.license=\\u0020${license}\n"
+				+ "multi.footer=\\n\n"));
+
+		LicensingReport report = new LicensingReport();
+		report.addLicensedArtifact(artifact("group:b:jar:1.0", "b", "MIT"));
+		report.addLicensedArtifact(artifact("group:a:jar:1.0", "A", "MIT", "EPL-1.0"));
+
+		TextResourceCache texts = new TextResourceCache();
+		TextTemplate template = TextTemplate.forResource(texts, locator, "template.properties");
+		assertSame(template, TextTemplate.forResource(texts, locator, "template.properties"));
+
+		File file = temporaryFolder.newFile("notice.txt");
+		report.writeTextReport(file, locator, texts, report.groupByLicense(), template, null, null, true, false);
+
+		assertEquals("# Third parties" + EOL
+				+ "## EPL-1.0" + EOL + "* A" + EOL + EOL
+				+ "## MIT" + EOL + "* A" + EOL + "* b" + EOL + EOL
+				+ "Several licenses:" + EOL + "A: EPL-1.0 MIT" + EOL,
+				new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The compiled template is kept with the text, and goes with it once the
+	 * resource changes.
+	 */
+	@Test
+	public void testTemplateIsCompiledAgainWhenItChanges() throws Exception {
+		File resource = resource("changing.properties", "artifact=${artifact}\n\n");
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("changing.properties")).thenReturn(resource);
+
+		TextResourceCache texts = new TextResourceCache();
+		TextTemplate template = TextTemplate.forResource(texts, locator, "changing.properties");
+		assertSame(template, TextTemplate.forResource(texts, locator, "changing.properties"));
+
+		Files.write(resource.toPath(), "artifact=- ${artifact}\n\n".getBytes(StandardCharsets.UTF_8));
+		assertNotSame(template, TextTemplate.forResource(texts, locator, "changing.properties"));
+	}
+
+	@Test
+	public void testUnknownPlaceholderIsRejected() throws Exception {
+		ResourceManager locator = mock(ResourceManager.class);
+		when(locator.getResourceAsFile("broken.properties")).thenReturn(resource("broken.properties", "artifact=${version}\n"));
+
+		try {
+			TextTemplate.forResource(new TextResourceCache(), locator, "broken.properties");
+			fail();
+		} catch (MojoExecutionException e) {
+			assertTrue(e.getMessage().contains("${version}"));
+		}
+	}
+
+	private File resource(String name, String content) throws Exception {
+		File file = temporaryFolder.newFile(name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}